@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+//A* search over the maze grid with reusable primitive arrays, no per-node objects
+public class AStarPlanner {
+    private MazeGrid grid;
+    private int width;
+    private int height;
+    private int[] gScore;  // cost from the start, valid when seen[cell] == search
+    private int[] parent;  // previous cell on the best known path
+    private int[] seen;  // search number that last reached each cell
+    private int[] closed;  // search number that last expanded each cell
+    private int search;  // current search number, avoids clearing the arrays
+    private CellHeap open;
+    
+    //constructor, arrays are sized once for the grid
+    public AStarPlanner(MazeGrid grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        int cellCount = width * height;
+        this.gScore = new int[cellCount];
+        this.parent = new int[cellCount];
+        this.seen = new int[cellCount];
+        this.closed = new int[cellCount];
+        this.search = 0;
+        this.open = new CellHeap(64);
+    }
+    
+    //first cell on a shortest path from start to goal, -1 when the goal cannot be reached
+    public int nextStep(int startX, int startY, int goalX, int goalY) {
+        int start = grid.index(startX, startY);
+        int goal = grid.index(goalX, goalY);
+        if (start == goal) {
+            return -1;
+        }
+        beginSearch();
+        
+        gScore[start] = 0;
+        parent[start] = -1;
+        seen[start] = search;
+        open.push(start, distance(start, goalX, goalY));
+        
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (closed[current] == search) {
+                continue; // stale entry, a shorter path was found later
+            }
+            closed[current] = search;
+            
+            if (current == goal) {
+                return firstStep(start, goal);
+            }
+            
+            int x = current % width;
+            int y = current / width;
+            if (x > 0) relax(current, x - 1, y, goalX, goalY);
+            if (x < width - 1) relax(current, x + 1, y, goalX, goalY);
+            if (y > 0) relax(current, x, y - 1, goalX, goalY);
+            if (y < height - 1) relax(current, x, y + 1, goalX, goalY);
+        }
+        return -1;
+    }
+    
+    private void relax(int current, int x, int y, int goalX, int goalY) {
+        if (!grid.isTraversable(x, y)) {
+            return;
+        }
+        int neighbor = grid.index(x, y);
+        if (closed[neighbor] == search) {
+            return;
+        }
+        int g = gScore[current] + 1;
+        if (seen[neighbor] != search || g < gScore[neighbor]) {
+            seen[neighbor] = search;
+            gScore[neighbor] = g;
+            parent[neighbor] = current;
+            open.push(neighbor, g + distance(neighbor, goalX, goalY));
+        }
+    }
+    
+    // walk back from the goal to the cell right after the start
+    private int firstStep(int start, int goal) {
+        int cell = goal;
+        while (parent[cell] != start) {
+            cell = parent[cell];
+        }
+        return cell;
+    }
+    
+    // manhattan distance, never overestimates on a 4-connected grid
+    private int distance(int cell, int goalX, int goalY) {
+        return Math.abs(cell % width - goalX) + Math.abs(cell / width - goalY);
+    }
+    
+    private void beginSearch() {
+        open.clear();
+        search++;
+        if (search == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+    }
+}
\ No newline at end of file
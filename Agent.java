@@ -1,51 +1,51 @@
+import java.util.SplittableRandom;
+
 public class Agent {
+    // stride used for packing positions when the maze width is not given, y must stay below 32768
+    private static final int DEFAULT_STRIDE = 1 << 16;
+    // positions a trap backtrack needs: the current one and the two before it
+    public static final int TRAP_HISTORY_DEPTH = 3;
+    
     private int id;
     private int currentX;
     private int currentY;
-    private Stack<String> moveHistory;
+    private MoveHistory moveHistory;
     private boolean hasReachedGoal;
     private int totalMoves;
     private int backtracks;
     private boolean hasPowerUp;
     private int trapsTriggered;
     private int powerUpsUsed;
+    private SplittableRandom random;  // this agent's own decision stream
     
     public Agent(int id, int startX, int startY) {
+        this(id, startX, startY, new SplittableRandom());
+    }
+    
+    public Agent(int id, int startX, int startY, SplittableRandom random) {
+        this(id, startX, startY, DEFAULT_STRIDE, random);
+    }
+    
+    public Agent(int id, int startX, int startY, int mazeWidth, SplittableRandom random) {
         this.id = id;
         this.currentX = startX;
         this.currentY = startY;
-        this.moveHistory = new Stack<>();
+        this.moveHistory = new MoveHistory(mazeWidth);
         this.hasReachedGoal = false;
         this.totalMoves = 0;
         this.backtracks = 0;
         this.hasPowerUp = false;
         this.trapsTriggered = 0;
         this.powerUpsUsed = 0;
+        this.random = random;
         
         recordMove(startX, startY);
     }
     
     
-    public void move(String direction) {
-        int newX = currentX;
-        int newY = currentY;
-        
-        switch (direction) {
-            case "UP":
-                newY--;
-                break;
-            case "DOWN":
-                newY++;
-                break;
-            case "LEFT":
-                newX--;
-                break;
-            case "RIGHT":
-                newX++;
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid direction: " + direction);
-        }
+    public void move(Direction direction) {
+        int newX = currentX + direction.getDx();
+        int newY = currentY + direction.getDy();
         
         currentX = newX;
         currentY = newY;
@@ -61,11 +61,8 @@ public class Agent {
         
         moveHistory.pop();
         
-        String previousPos = moveHistory.peek();
-        String[] coords = previousPos.split(",");
-        
-        currentX = Integer.parseInt(coords[0]);
-        currentY = Integer.parseInt(coords[1]);
+        currentX = moveHistory.peekX();
+        currentY = moveHistory.peekY();
         
         backtracks++;
         return true;
@@ -94,13 +91,19 @@ public class Agent {
     }
   
     public void recordMove(int x, int y) {
-        moveHistory.push(x + "," + y);
+        moveHistory.push(x, y);
     }
     
     public String getMoveHistoryAsString() {
         return moveHistory.toString(); // Show last 5 moves
     }
     
+    // keep only the latest positions, 0 keeps all of them
+    // TRAP_HISTORY_DEPTH covers a single trap, traps in a row then backtrack less far than with the full history
+    public void setHistoryLimit(int limit) {
+        moveHistory.setLimit(limit);
+    }
+    
    
     public int getId() {
         return id;
@@ -166,6 +169,11 @@ public class Agent {
     }
     
     
+    public SplittableRandom getRandom() {
+        return random;
+    }
+    
+    
     @Override
     public String toString() {
         return "Agent " + id + " at (" + currentX + "," + currentY + ")";
@@ -0,0 +1,6 @@
+//how agents choose their moves
+public enum AgentStrategy {
+    RANDOM,  // step in a random valid direction
+    A_STAR,  // follow a shortest path to the goal, random when it cannot be reached
+    DISTANCE_FIELD  // step downhill on the distance field all agents share, random when it cannot be reached
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+//combined statistics of many independent runs
+public class BatchReport {
+    public static final String CSV_HEADER = "runs,average_turns,win_rate,runs_with_winner,average_moves,"
+            + "average_backtracks,average_traps,average_power_ups,turns_per_second,best_seed,worst_seed";
+    
+    private int runs;
+    private long totalTurns;
+    private int runsWithWinner;
+    private int agentCount;
+    private int finishers;
+    private long totalBacktracks;
+    private long totalTraps;
+    private long totalPowerUpsUsed;
+    private int[] moves;  // moves of every agent of every run
+    private int[] finisherMoves;  // moves of the agents who reached the goal
+    private Metrics metrics;  // timings of every run together
+    private SimulationResult best;  // most agents at the goal, then fewest turns, its seed replays it
+    private SimulationResult worst;  // fewest agents at the goal, then most turns
+    
+    //constructor for an empty report
+    public BatchReport() {
+        this.moves = new int[16];
+        this.finisherMoves = new int[16];
+        this.metrics = new Metrics();
+    }
+    
+    //adds one finished run to the report
+    public void add(SimulationResult result) {
+        runs++;
+        totalTurns += result.getTurnCount();
+        metrics.merge(result.getMetrics());
+        
+        boolean anyWinner = false;
+        for (int i = 0; i < result.getAgentCount(); i++) {
+            int agentMoves = result.getMoves(i);
+            moves = append(moves, agentCount, agentMoves);
+            agentCount++;
+            totalBacktracks += result.getBacktracks(i);
+            totalTraps += result.getTrapsTriggered(i);
+            totalPowerUpsUsed += result.getPowerUpsUsed(i);
+            
+            if (result.hasReachedGoal(i)) {
+                finisherMoves = append(finisherMoves, finishers, agentMoves);
+                finishers++;
+                anyWinner = true;
+            }
+        }
+        if (anyWinner) {
+            runsWithWinner++;
+        }
+        
+        // earlier runs win ties, so the order of the runs decides and not their timing
+        if (best == null || compare(result, best) > 0) {
+            best = result;
+        }
+        if (worst == null || compare(result, worst) < 0) {
+            worst = result;
+        }
+    }
+    
+    //elapsed time of the whole batch, throughput is taken over it since the runs overlap
+    public void setWallNanos(long wallNanos) {
+        metrics.setWallNanos(wallNanos);
+    }
+    
+    public int getRuns() {
+        return runs;
+    }
+    
+    //fraction of all agents that reached the goal
+    public double getWinRate() {
+        return agentCount == 0 ? 0 : (double) finishers / agentCount;
+    }
+    
+    //formats the report
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("===== BATCH STATISTICS =====\n");
+        sb.append("Runs: ").append(runs).append("\n");
+        sb.append(String.format("Average turns per run: %.2f\n", runs == 0 ? 0 : (double) totalTurns / runs));
+        sb.append(String.format("Win rate: %.2f%% (%d of %d agents reached the goal)\n",
+                                getWinRate() * 100, finishers, agentCount));
+        sb.append(String.format("Runs with at least one agent at the goal: %d (%.2f%%)\n",
+                                runsWithWinner, runs == 0 ? 0 : (double) runsWithWinner / runs * 100));
+        if (runs > 0) {
+            sb.append("Best run: ").append(describe(best)).append("\n");
+            sb.append("Worst run: ").append(describe(worst)).append("\n");
+        }
+        sb.append("Moves per agent: ").append(distribution(moves, agentCount)).append("\n");
+        sb.append("Moves of agents who reached the goal: ").append(distribution(finisherMoves, finishers)).append("\n");
+        sb.append(String.format("Average backtracks per agent: %.2f\n", average(totalBacktracks)));
+        sb.append(String.format("Average traps triggered per agent: %.2f\n", average(totalTraps)));
+        sb.append(String.format("Average power-ups per agent: %.2f\n", average(totalPowerUpsUsed)));
+        sb.append("\n").append(metrics.summary());
+        return sb.toString();
+    }
+    
+    //the report as one CSV row, columns as in CSV_HEADER
+    public String toCsv() {
+        long totalMoves = 0;
+        for (int i = 0; i < agentCount; i++) {
+            totalMoves += moves[i];
+        }
+        return String.format(Locale.ROOT, "%d,%.4f,%.4f,%d,%.4f,%.4f,%.4f,%.4f,%.1f,%s,%s",
+                             runs, runs == 0 ? 0 : (double) totalTurns / runs, getWinRate(), runsWithWinner,
+                             average(totalMoves), average(totalBacktracks), average(totalTraps),
+                             average(totalPowerUpsUsed), metrics.getTurnsPerSecond(),
+                             best == null ? "" : String.valueOf(best.getSeed()),
+                             worst == null ? "" : String.valueOf(worst.getSeed()));
+    }
+    
+    //seed of the run with the most agents at the goal, then the fewest turns
+    public long getBestSeed() {
+        return best.getSeed();
+    }
+    
+    //seed of the run with the fewest agents at the goal, then the most turns
+    public long getWorstSeed() {
+        return worst.getSeed();
+    }
+    
+    // more agents at the goal is better, then fewer turns
+    private static int compare(SimulationResult a, SimulationResult b) {
+        int byFinishers = Integer.compare(finishers(a), finishers(b));
+        return byFinishers != 0 ? byFinishers : Integer.compare(b.getTurnCount(), a.getTurnCount());
+    }
+    
+    private static int finishers(SimulationResult result) {
+        int count = 0;
+        for (int i = 0; i < result.getAgentCount(); i++) {
+            if (result.hasReachedGoal(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static String describe(SimulationResult result) {
+        return "seed " + result.getSeed() + " (" + finishers(result) + " of " + result.getAgentCount()
+                + " agents reached the goal in " + result.getTurnCount() + " turns)";
+    }
+    
+    private double average(long total) {
+        return agentCount == 0 ? 0 : (double) total / agentCount;
+    }
+    
+    // min, mean, percentiles and max of the first count values
+    private static String distribution(int[] values, int count) {
+        if (count == 0) {
+            return "none";
+        }
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (int value : sorted) {
+            sum += value;
+        }
+        return String.format("min %d, mean %.2f, median %d, p90 %d, max %d",
+                             sorted[0], (double) sum / count, percentile(sorted, 50),
+                             percentile(sorted, 90), sorted[count - 1]);
+    }
+    
+    private static int percentile(int[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+    
+    private static int[] append(int[] values, int count, int value) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count] = value;
+        return values;
+    }
+}
\ No newline at end of file
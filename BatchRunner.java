@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+//runs many independent headless simulations across all cores
+public class BatchRunner {
+    private int parallelism;
+    
+    //constructor, one worker per available core
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    //constructor with a given number of workers
+    public BatchRunner(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    //runs the same parameters several times, run seeds are drawn from the config seed
+    public BatchReport run(SimulationConfig config, int runs) {
+        SplittableRandom seeds = new SplittableRandom(config.getSeed());
+        List<SimulationConfig> configs = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            configs.add(config.withSeed(seeds.nextLong()));
+        }
+        return run(configs);
+    }
+    
+    //runs every configuration once, results are combined in the given order
+    public BatchReport run(List<SimulationConfig> configs) {
+        long start = System.nanoTime();
+        List<SimulationResult> results = runEach(configs);
+        long wallNanos = System.nanoTime() - start;
+        BatchReport report = new BatchReport();
+        for (SimulationResult result : results) {
+            report.add(result);
+        }
+        report.setWallNanos(wallNanos);
+        return report;
+    }
+    
+    //runs every configuration once, the result of each in the given order
+    public List<SimulationResult> runEach(List<SimulationConfig> configs) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<SimulationResult>> tasks = new ArrayList<>();
+            for (SimulationConfig config : configs) {
+                tasks.add(pool.submit(() -> runOnce(config)));
+            }
+            
+            List<SimulationResult> results = new ArrayList<>();
+            for (ForkJoinTask<SimulationResult> task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    //runs a single simulation with its own maze, turn manager and random streams
+    public static SimulationResult runOnce(SimulationConfig config) {
+        GameController controller;
+        try {
+            controller = newController(config);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        controller.playTurns();
+        return controller.getResult();
+    }
+    
+    //a headless game set up from the configuration, ready to play
+    public static GameController newController(SimulationConfig config) throws IOException {
+        GameController controller = new GameController(config.getMaxTurns());
+        controller.setHeadless(true);
+        controller.setStrategy(config.getStrategy());
+        controller.setSimultaneous(config.isSimultaneous());
+        // runs already fill every core, each decides its rounds on one thread
+        controller.setParallelism(1);
+        controller.setRotatingCorridors(config.getRotatingRows(), config.getRotatingColumns(), config.getRotationPeriod());
+        if (config.getMazeFile() == null) {
+            controller.initializeGame(config.getMazeWidth(), config.getMazeHeight(), config.getNumAgents(),
+                                      config.getWallDensity(), config.getTrapDensity(), config.getPowerUpDensity(),
+                                      config.getSeed());
+        } else {
+            // every run maps its own private copy of the shared maze
+            controller.initializeGame(MazeManager.loadMaze(config.getMazeFile()), config.getNumAgents(),
+                                      config.getSeed());
+        }
+        return controller;
+    }
+}
\ No newline at end of file
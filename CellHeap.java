@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+//binary min-heap of cell indices keyed by an int priority
+//entries are packed into longs (priority high, cell low) so no node objects are created
+public class CellHeap {
+    private long[] entries;
+    private int size;
+    
+    //constructor with an initial capacity
+    public CellHeap(int capacity) {
+        this.entries = new long[Math.max(capacity, 16)];
+        this.size = 0;
+    }
+    
+    //add a cell, priorities and cells must not be negative
+    public void push(int cell, int priority) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        long entry = ((long) priority << 32) | cell;
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (entries[parent] <= entry) {
+                break;
+            }
+            entries[i] = entries[parent];
+            i = parent;
+        }
+        entries[i] = entry;
+    }
+    
+    //remove the cell with the lowest priority, ties go to the lower cell index
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        int cell = (int) entries[0];
+        long last = entries[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && entries[child + 1] < entries[child]) {
+                child++;
+            }
+            if (last <= entries[child]) {
+                break;
+            }
+            entries[i] = entries[child];
+            i = child;
+        }
+        entries[i] = last;
+        return cell;
+    }
+    
+    //priority of the cell pop would return
+    public int peekPriority() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return (int) (entries[0] >>> 32);
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+}
\ No newline at end of file
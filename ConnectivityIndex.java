@@ -0,0 +1,503 @@
+import java.util.Arrays;
+
+//connected regions of traversable cells, kept up to date as corridors rotate
+//a rotation joins regions with union-find and only searches the regions that the rotated line may have cut
+public class ConnectivityIndex {
+    private static final int NONE = -1;
+
+    private MazeGrid grid;
+    private int width;
+    private int height;
+    private int[] label;  // region of each cell through find, 0 for walls, negative while a split search marks it
+    private int[] parent;  // union-find over labels
+    private int nextLabel;
+    private int labelLimit;  // labels handed out before everything is relabelled from scratch
+    private int[] stack;  // flood fill work list of cell indices
+
+    // line scratch, one entry per cell of the rotated line or per cell beside it
+    private int[] lineRegion;  // region of each line cell before the shift, 0 for walls
+    private int[] runOf;  // run of traversable line cells at each position, NONE for walls
+    private int[] runFirst;  // first source of the current region that touched each run
+    private int[] runSeen;
+    private int[] sourceCell;  // traversable cells beside the line
+    private int[] sourcePosition;
+    private int[] sourceSide;
+    private long[] sourceOrder;  // region << 32 | source for sources beside their own region's old line cells, sorted
+    private int[] sourceParent;  // sources joined through a new run or by sitting side by side
+    private int[] sourceSearch;
+
+    // split search scratch, one entry per search
+    private int[] searchParent;  // searches that met share a group, the root runs for all of them
+    private int[] searchTop;  // first and last node of the root's queue in the node pool
+    private int[] searchBottom;
+    private int[] searchSize;  // cells the group has visited
+    private int[] searchLabel;
+    private int[] active;  // roots still running
+    private int[] activePosition;
+    private int activeCount;
+
+    // linked queues of every running search, shared so a search costs nothing to start.
+    // searches go breadth first so two that start close together meet early
+    private int[] nodeCell = new int[64];
+    private int[] nodeNext = new int[64];
+    private int nodeCount;
+    private int freeNode = NONE;
+
+    //constructor, labels the whole grid
+    public ConnectivityIndex(MazeGrid grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.label = new int[width * height];
+        this.stack = new int[Math.min(width * height, 1024)];
+        int line = Math.max(width, height);
+        // a rotation hands out at most a label per run and per source
+        this.labelLimit = width * height + 3 * line + 2;
+        this.lineRegion = new int[line];
+        this.runOf = new int[line];
+        this.runFirst = new int[line];
+        this.runSeen = new int[line];
+        this.sourceCell = new int[2 * line];
+        this.sourcePosition = new int[2 * line];
+        this.sourceSide = new int[2 * line];
+        this.sourceOrder = new long[2 * line];
+        this.sourceParent = new int[2 * line];
+        this.sourceSearch = new int[2 * line];
+        this.searchParent = new int[2 * line];
+        this.searchTop = new int[2 * line];
+        this.searchBottom = new int[2 * line];
+        this.searchSize = new int[2 * line];
+        this.searchLabel = new int[2 * line];
+        this.active = new int[2 * line];
+        this.activePosition = new int[2 * line];
+        rebuild();
+    }
+
+    //labels every region from scratch, needed after walls are added or removed outside rotations
+    public void rebuild() {
+        Arrays.fill(label, 0);
+        nextLabel = 1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (label[grid.index(x, y)] == 0 && grid.isTraversable(x, y)) {
+                    flood(x, y);
+                }
+            }
+        }
+        if (parent == null || parent.length < nextLabel) {
+            parent = new int[Math.max(16, nextLabel * 2)];
+        }
+        for (int i = 0; i < nextLabel; i++) {
+            parent[i] = i;
+        }
+    }
+
+    //true when both cells are traversable and in the same region
+    public boolean isConnected(int x1, int y1, int x2, int y2) {
+        int first = label[grid.index(x1, y1)];
+        return first != 0 && root(first) == root(label[grid.index(x2, y2)]);
+    }
+
+    //region of the cell, 0 for walls
+    public int getLabel(int x, int y) {
+        return root(label[grid.index(x, y)]);
+    }
+
+    //call after row y rotated
+    public void rowShifted(int y) {
+        lineShifted(true, y);
+    }
+
+    //call after column x rotated
+    public void columnShifted(int x) {
+        lineShifted(false, x);
+    }
+
+    private void lineShifted(boolean row, int line) {
+        int length = row ? width : height;
+
+        // labels still describe the grid before the shift, nothing to do when the walls line up the same
+        boolean changed = false;
+        for (int i = 0; i < length && !changed; i++) {
+            changed = (label[lineCell(row, line, i)] != 0) != traversable(row, line, i);
+        }
+        if (!changed) {
+            return;
+        }
+        if (nextLabel + 3 * length + 2 > labelLimit) {
+            rebuild();
+            return;
+        }
+        if (nextLabel + 3 * length + 2 > parent.length) {
+            parent = Arrays.copyOf(parent, Math.min(labelLimit, Math.max(parent.length * 2, nextLabel + 3 * length + 2)));
+        }
+
+        // runs of traversable cells on the line after the shift
+        int runs = 0;
+        for (int i = 0; i < length; i++) {
+            int old = label[lineCell(row, line, i)];
+            lineRegion[i] = old == 0 ? 0 : find(parent, old);
+            if (!traversable(row, line, i)) {
+                runOf[i] = NONE;
+            } else {
+                runOf[i] = i > 0 && runOf[i - 1] != NONE ? runOf[i - 1] : runs++;
+            }
+        }
+
+        // the traversable cells on both sides of the line. a region can only have been cut where its own
+        // cells were on the line, and every piece left holds a cell right beside one of them
+        int sources = 0;
+        int cut = 0;
+        for (int i = 0; i < length; i++) {
+            for (int side = 0; side < 2; side++) {
+                int across = side == 0 ? line - 1 : line + 1;
+                if (across < 0 || across >= (row ? height : width)) {
+                    continue;
+                }
+                int cell = row ? grid.index(i, across) : grid.index(across, i);
+                if (label[cell] != 0) {
+                    int region = find(parent, label[cell]);
+                    if (region == lineRegion[i]) {
+                        sourceOrder[cut++] = (long) region << 32 | sources;
+                    }
+                    sourceCell[sources] = cell;
+                    sourcePosition[sources] = i;
+                    sourceSide[sources] = side;
+                    sources++;
+                }
+            }
+        }
+        sortSources(cut);
+
+        Arrays.fill(runSeen, 0, runs, NONE);
+        for (int first = 0; first < cut; ) {
+            int region = (int) (sourceOrder[first] >>> 32);
+            int end = first + 1;
+            while (end < cut && (int) (sourceOrder[end] >>> 32) == region) {
+                end++;
+            }
+            split(row, line, region, first, end);
+            first = end;
+        }
+
+        // then the new line joins what it touches
+        int run = NONE;
+        for (int i = 0; i < length; i++) {
+            int cell = lineCell(row, line, i);
+            if (runOf[i] == NONE) {
+                label[cell] = 0;
+            } else {
+                if (runOf[i] != run) {
+                    run = runOf[i];
+                    parent[nextLabel] = nextLabel;
+                    nextLabel++;
+                }
+                label[cell] = nextLabel - 1;
+            }
+        }
+        for (int s = 0; s < sources; s++) {
+            int i = sourcePosition[s];
+            if (runOf[i] != NONE) {
+                union(label[sourceCell[s]], label[lineCell(row, line, i)]);
+            }
+        }
+    }
+
+    // sources first..end of sourceOrder belong to one old region. sources that touch the same new run or
+    // sit next to each other start one search, the searches run in turn and merge when they meet, until at
+    // most one is still going. each search that ran out found whole pieces cut off from the others,
+    // what is left keeps the region's label
+    private void split(boolean row, int line, int region, int first, int end) {
+        int searches = 0;
+        int before = NONE;  // last source seen on each side
+        int after = NONE;
+        for (int k = first; k < end; k++) {
+            int s = (int) sourceOrder[k];
+            sourceParent[s] = s;
+            int run = runOf[sourcePosition[s]];
+            if (run != NONE) {
+                if (runSeen[run] == region) {
+                    sourceParent[s] = find(sourceParent, runFirst[run]);
+                } else {
+                    runSeen[run] = region;
+                    runFirst[run] = s;
+                }
+            }
+            int previous = sourceSide[s] == 0 ? before : after;
+            if (previous != NONE && sourcePosition[previous] == sourcePosition[s] - 1) {
+                sourceParent[find(sourceParent, previous)] = find(sourceParent, s);
+            }
+            if (sourceSide[s] == 0) {
+                before = s;
+            } else {
+                after = s;
+            }
+        }
+        for (int k = first; k < end; k++) {
+            int s = (int) sourceOrder[k];
+            if (find(sourceParent, s) == s) {
+                sourceSearch[s] = searches++;
+            }
+        }
+        if (searches < 2) {
+            return;
+        }
+
+        nodeCount = 0;
+        freeNode = NONE;
+        activeCount = 0;
+        for (int c = 0; c < searches; c++) {
+            searchParent[c] = c;
+            searchTop[c] = NONE;
+            searchBottom[c] = NONE;
+            searchSize[c] = 0;
+            searchLabel[c] = 0;
+            active[activeCount] = c;
+            activePosition[c] = activeCount++;
+        }
+        for (int k = first; k < end; k++) {
+            int s = (int) sourceOrder[k];
+            int c = sourceSearch[find(sourceParent, s)];
+            label[sourceCell[s]] = -(c + 1);
+            push(c, sourceCell[s]);
+            searchSize[c]++;
+        }
+
+        int turn = 0;
+        while (activeCount > 1) {
+            if (turn >= activeCount) {
+                turn = 0;
+            }
+            int c = active[turn];
+            step(row, line, c);
+            if (turn < activeCount && active[turn] == c) {
+                turn++;
+            }
+        }
+
+        // the running search keeps the region, or the largest piece when every search ran out
+        int keep = activeCount == 1 ? active[0] : NONE;
+        if (keep == NONE) {
+            for (int c = 0; c < searches; c++) {
+                int group = find(searchParent, c);
+                if (keep == NONE || searchSize[group] > searchSize[keep]) {
+                    keep = group;
+                }
+            }
+        }
+        searchLabel[keep] = region;
+        for (int k = first; k < end; k++) {
+            int cell = sourceCell[(int) sourceOrder[k]];
+            if (label[cell] < 0) {
+                int group = find(searchParent, -label[cell] - 1);
+                if (searchLabel[group] == 0) {
+                    parent[nextLabel] = nextLabel;
+                    searchLabel[group] = nextLabel++;
+                }
+                settle(row, line, cell, searchLabel[group]);
+            }
+        }
+    }
+
+    // expand one cell of the running search c
+    private void step(boolean row, int line, int c) {
+        int node = searchTop[c];
+        if (node == NONE) {
+            deactivate(c);
+            return;
+        }
+        searchTop[c] = nodeNext[node];
+        if (searchTop[c] == NONE) {
+            searchBottom[c] = NONE;
+        }
+        nodeNext[node] = freeNode;
+        freeNode = node;
+        int cell = nodeCell[node];
+        int cx = cell % width;
+        int cy = cell / width;
+        for (int d = 0; d < 4; d++) {
+            int nx = d == 0 ? cx - 1 : d == 1 ? cx + 1 : cx;
+            int ny = d == 2 ? cy - 1 : d == 3 ? cy + 1 : cy;
+            if (nx < 0 || nx >= width || ny < 0 || ny >= height || (row ? ny : nx) == line) {
+                continue;
+            }
+            // cells off the line did not move, their labels alone say whether they are walls
+            int next = grid.index(nx, ny);
+            int mark = label[next];
+            if (mark == 0 || mark == -(c + 1)) {
+                continue;
+            }
+            if (mark > 0) {
+                label[next] = -(c + 1);
+                push(c, next);
+                searchSize[c]++;
+                continue;
+            }
+            int other = find(searchParent, -mark - 1);
+            if (other != c) {
+                // both searches are in the same piece, c carries on with the other's queue as well
+                searchParent[other] = c;
+                searchSize[c] += searchSize[other];
+                if (searchTop[other] != NONE) {
+                    if (searchTop[c] == NONE) {
+                        searchTop[c] = searchTop[other];
+                    } else {
+                        nodeNext[searchBottom[c]] = searchTop[other];
+                    }
+                    searchBottom[c] = searchBottom[other];
+                }
+                deactivate(other);
+            }
+        }
+    }
+
+    private void deactivate(int c) {
+        int position = activePosition[c];
+        int last = active[--activeCount];
+        active[position] = last;
+        activePosition[last] = position;
+    }
+
+    private void push(int c, int cell) {
+        int node = freeNode;
+        if (node != NONE) {
+            freeNode = nodeNext[node];
+        } else {
+            if (nodeCount == nodeCell.length) {
+                nodeCell = Arrays.copyOf(nodeCell, nodeCount * 2);
+                nodeNext = Arrays.copyOf(nodeNext, nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        nodeCell[node] = cell;
+        nodeNext[node] = NONE;
+        if (searchTop[c] == NONE) {
+            searchTop[c] = node;
+        } else {
+            nodeNext[searchBottom[c]] = node;
+        }
+        searchBottom[c] = node;
+    }
+
+    // give every cell a search marked around start, off the line, its final label
+    private void settle(boolean row, int line, int start, int region) {
+        int size = 0;
+        label[start] = region;
+        stack[size++] = start;
+        while (size > 0) {
+            int cell = stack[--size];
+            int cx = cell % width;
+            int cy = cell / width;
+            if (cx > 0 && (row || cx - 1 != line)) size = settleVisit(cell - 1, region, size);
+            if (cx < width - 1 && (row || cx + 1 != line)) size = settleVisit(cell + 1, region, size);
+            if (cy > 0 && (!row || cy - 1 != line)) size = settleVisit(cell - width, region, size);
+            if (cy < height - 1 && (!row || cy + 1 != line)) size = settleVisit(cell + width, region, size);
+        }
+    }
+
+    private int settleVisit(int cell, int region, int size) {
+        if (label[cell] >= 0) {
+            return size;
+        }
+        label[cell] = region;
+        return pushCell(cell, size);
+    }
+
+    // give the region around (x, y) a new label
+    private void flood(int x, int y) {
+        int region = nextLabel++;
+        int size = 0;
+        int start = grid.index(x, y);
+        label[start] = region;
+        stack[size++] = start;
+
+        while (size > 0) {
+            int cell = stack[--size];
+            int cx = cell % width;
+            int cy = cell / width;
+            if (cx > 0) size = visit(cx - 1, cy, region, size);
+            if (cx < width - 1) size = visit(cx + 1, cy, region, size);
+            if (cy > 0) size = visit(cx, cy - 1, region, size);
+            if (cy < height - 1) size = visit(cx, cy + 1, region, size);
+        }
+    }
+
+    private int visit(int x, int y, int region, int size) {
+        int cell = grid.index(x, y);
+        if (label[cell] != 0 || !grid.isTraversable(x, y)) {
+            return size;
+        }
+        label[cell] = region;
+        return pushCell(cell, size);
+    }
+
+    private int pushCell(int cell, int size) {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size] = cell;
+        return size + 1;
+    }
+
+    // heapsort in place, Arrays.sort allocates when the keys come in sorted runs as these do
+    private void sortSources(int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            long top = sourceOrder[0];
+            sourceOrder[0] = sourceOrder[end];
+            sourceOrder[end] = top;
+            siftDown(0, end);
+        }
+    }
+
+    private void siftDown(int i, int count) {
+        long key = sourceOrder[i];
+        while (2 * i + 1 < count) {
+            int child = 2 * i + 1;
+            if (child + 1 < count && sourceOrder[child + 1] > sourceOrder[child]) {
+                child++;
+            }
+            if (sourceOrder[child] <= key) {
+                break;
+            }
+            sourceOrder[i] = sourceOrder[child];
+            i = child;
+        }
+        sourceOrder[i] = key;
+    }
+
+    private void union(int a, int b) {
+        int first = find(parent, a);
+        int second = find(parent, b);
+        if (first != second) {
+            parent[first] = second;
+        }
+    }
+
+    // root of i without writing, queries may run on several threads at once
+    private int root(int i) {
+        while (parent[i] != i) {
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // root of i, halving the path on the way, only while the index changes
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    private int lineCell(boolean row, int line, int i) {
+        return row ? grid.index(i, line) : grid.index(line, i);
+    }
+
+    private boolean traversable(boolean row, int line, int i) {
+        return row ? grid.isTraversable(i, line) : grid.isTraversable(line, i);
+    }
+}
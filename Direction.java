@@ -0,0 +1,60 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//the four moves an agent can make
+public enum Direction {
+    UP(0, -1),
+    DOWN(0, 1),
+    LEFT(-1, 0),
+    RIGHT(1, 0);
+    
+    // every order of the four directions, a random pick is a shuffle without allocation
+    private static final List<List<Direction>> ORDERS = buildOrders();
+    
+    private final int dx;
+    private final int dy;
+    
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+    
+    public int getDx() {
+        return dx;
+    }
+    
+    public int getDy() {
+        return dy;
+    }
+    
+    //change of the flat cell index (y * width + x) for one step
+    public int indexDelta(int width) {
+        return dy * width + dx;
+    }
+    
+    //all four directions in a uniformly random order, the list is shared and read only
+    public static List<Direction> randomOrder(SplittableRandom random) {
+        return ORDERS.get(random.nextInt(ORDERS.size()));
+    }
+    
+    private static List<List<Direction>> buildOrders() {
+        Direction[] values = values();
+        List<List<Direction>> orders = new ArrayList<>(24);
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a == b || a == c || b == c || d < 0 || d > 3 || d == a || d == b || d == c) {
+                        continue;
+                    }
+                    orders.add(Collections.unmodifiableList(
+                            Arrays.asList(values[a], values[b], values[c], values[d])));
+                }
+            }
+        }
+        return Collections.unmodifiableList(orders);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+//number of steps from every cell to the goal, one breadth first search shared by all agents
+//a corridor rotation only repairs the distances that depended on the cells it moved
+public class DistanceField {
+    //distance of walls and of cells that cannot reach the goal
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private MazeGrid grid;
+    private int width;
+    private int height;
+    private int goal;
+    private int[] distance;
+    private BitSet open;  // traversable cells as of the last update
+    private IntQueue queue;  // search frontier, then the cells whose distance was dropped
+    private int[] dropped;  // cells that lost their distance in the current repair
+    private int droppedCount;
+    private CellHeap heap;
+
+    //constructor, computes the whole field
+    public DistanceField(MazeGrid grid, int goalX, int goalY) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.goal = grid.index(goalX, goalY);
+        this.distance = new int[width * height];
+        this.open = new BitSet(width * height);
+        this.queue = new IntQueue(Math.min(width * height, 1024));
+        this.dropped = new int[Math.min(width * height, 1024)];
+        this.heap = new CellHeap(1024);
+        rebuild();
+    }
+
+    //computes every distance from scratch, needed after walls are added or removed outside rotations
+    public void rebuild() {
+        Arrays.fill(distance, UNREACHABLE);
+        open.clear();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (grid.isTraversable(x, y)) {
+                    open.set(grid.index(x, y));
+                }
+            }
+        }
+        if (!open.get(goal)) {
+            return;
+        }
+
+        queue.clear();
+        distance[goal] = 0;
+        queue.enqueue(goal);
+        while (!queue.isEmpty()) {
+            int cell = queue.dequeue();
+            int next = distance[cell] + 1;
+            int x = cell % width;
+            int y = cell / width;
+            if (x > 0) reach(cell - 1, next);
+            if (x < width - 1) reach(cell + 1, next);
+            if (y > 0) reach(cell - width, next);
+            if (y < height - 1) reach(cell + width, next);
+        }
+    }
+
+    private void reach(int cell, int next) {
+        if (distance[cell] == UNREACHABLE && open.get(cell)) {
+            distance[cell] = next;
+            queue.enqueue(cell);
+        }
+    }
+
+    //steps from the cell to the goal, UNREACHABLE for walls and cut off cells
+    public int getDistance(int x, int y) {
+        return distance[grid.index(x, y)];
+    }
+
+    //call after row y rotated
+    public void rowShifted(int y) {
+        lineShifted(true, y);
+    }
+
+    //call after column x rotated
+    public void columnShifted(int x) {
+        lineShifted(false, x);
+    }
+
+    private void lineShifted(boolean row, int line) {
+        int length = row ? width : height;
+
+        // cells on the line that turned into walls or opened up lose their distance
+        queue.clear();
+        droppedCount = 0;
+        for (int i = 0; i < length; i++) {
+            int x = row ? i : line;
+            int y = row ? line : i;
+            int cell = grid.index(x, y);
+            boolean traversable = grid.isTraversable(x, y);
+            if (traversable != open.get(cell)) {
+                open.set(cell, traversable);
+                drop(cell);
+            }
+        }
+        if (droppedCount == 0) {
+            return;
+        }
+
+        // so does every cell left without a neighbor one step closer to the goal
+        while (!queue.isEmpty()) {
+            int cell = queue.dequeue();
+            int x = cell % width;
+            int y = cell / width;
+            if (x > 0) dropUnsupported(cell - 1, x - 1, y);
+            if (x < width - 1) dropUnsupported(cell + 1, x + 1, y);
+            if (y > 0) dropUnsupported(cell - width, x, y - 1);
+            if (y < height - 1) dropUnsupported(cell + width, x, y + 1);
+        }
+
+        // dropped cells start from the best distance their remaining neighbors offer,
+        // then shorter distances spread outward in order, also through opened shortcuts
+        heap.clear();
+        for (int i = 0; i < droppedCount; i++) {
+            int cell = dropped[i];
+            if (!open.get(cell)) {
+                continue;
+            }
+            int best = closestNeighbor(cell % width, cell / width);
+            if (best != UNREACHABLE) {
+                distance[cell] = best + 1;
+                heap.push(cell, best + 1);
+            }
+        }
+        while (!heap.isEmpty()) {
+            int steps = heap.peekPriority();
+            int cell = heap.pop();
+            if (steps != distance[cell]) {
+                continue;
+            }
+            int x = cell % width;
+            int y = cell / width;
+            if (x > 0) relax(cell - 1, steps + 1);
+            if (x < width - 1) relax(cell + 1, steps + 1);
+            if (y > 0) relax(cell - width, steps + 1);
+            if (y < height - 1) relax(cell + width, steps + 1);
+        }
+    }
+
+    private void drop(int cell) {
+        distance[cell] = UNREACHABLE;
+        if (droppedCount == dropped.length) {
+            dropped = Arrays.copyOf(dropped, droppedCount * 2);
+        }
+        dropped[droppedCount++] = cell;
+        queue.enqueue(cell);
+    }
+
+    private void dropUnsupported(int cell, int x, int y) {
+        int steps = distance[cell];
+        if (steps == UNREACHABLE || steps == 0 || closestNeighbor(x, y) == steps - 1) {
+            return;
+        }
+        drop(cell);
+    }
+
+    // smallest distance among the neighbors of a cell
+    private int closestNeighbor(int x, int y) {
+        int cell = grid.index(x, y);
+        int best = UNREACHABLE;
+        if (x > 0) best = Math.min(best, distance[cell - 1]);
+        if (x < width - 1) best = Math.min(best, distance[cell + 1]);
+        if (y > 0) best = Math.min(best, distance[cell - width]);
+        if (y < height - 1) best = Math.min(best, distance[cell + width]);
+        return best;
+    }
+
+    private void relax(int cell, int steps) {
+        if (steps < distance[cell] && open.get(cell)) {
+            distance[cell] = steps;
+            heap.push(cell, steps);
+        }
+    }
+}
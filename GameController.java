@@ -1,53 +1,244 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Random;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 //for controlling the game
 public class GameController {
+    //mazes with at least this many cells run in large-scale mode, headless with bounded move histories
+    public static final long LARGE_MAZE_CELLS = 1 << 20;
+    //positions each agent keeps in large-scale mode when no limit was set
+    public static final int LARGE_MAZE_HISTORY = 64;
+    //logged turns between two full maze states in the turn log, the turns between only log their changes
+    public static final int KEYFRAME_INTERVAL = 50;
+    
     private MazeManager maze;
     private TurnManager turns;
     private int maxTurns;
     private int turnCount;
-    private Random random;
-    private static final String[] DIRECTIONS = {"UP", "DOWN", "LEFT", "RIGHT"};
+    private long seed;
+    private AgentStrategy strategy;  // how agents pick their moves
+    private int historyLimit;  // positions each agent keeps, 0 for the full history
+    private boolean headless;  // no console rendering or turn logs, only final statistics
+    private TurnLogWriter logWriter;  // open while turns are streamed to the log file
+    private Path logPath;  // file the streamed log goes to
+    private long totalTurnsPosition;  // where the streamed header holds the turn count, filled in at the end
+    private boolean simultaneous;  // every agent decides at once each round instead of one turn at a time
+    private int parallelism;  // decision threads in simultaneous mode
+    private Metrics metrics;  // phase latencies and throughput of this run
+    private int rotatingRows;  // rotating corridors of generated mazes, see MazeManager.setRotatingCorridors
+    private int rotatingColumns;
+    private int rotationPeriod;
+    private StringBuilder turnChanges;  // what the action being logged did to the maze
+    private StringBuilder keyframe;
+    private int turnsToKeyframe;  // logged turns until the next keyframe, 0 logs one now
+    private ReplayRecorder recorder;  // open while turns are recorded to a replay file
+    private int turnEffects;  // ReplayRecord effects of the action applied last
+    private List<Agent> replayRound;  // the round being replayed in simultaneous mode
+    private int replayPosition;  // agents of replayRound already replayed
+    private Map<Long, Long> roundMoves;  // simultaneous mode: cell an agent moved to this round -> cell it came from
+    
+    // decisions that are not a move
+    public static final int USE_POWER_UP = -2;
+    public static final int WAIT = -1;
+    private static final Direction[] DIRECTIONS = Direction.values();
     
     //for initializing game
     public GameController(int maxTurns) {
         this.maxTurns = maxTurns;
         this.turnCount = 0;
-        this.random = new Random();
+        this.headless = false;
+        this.strategy = AgentStrategy.RANDOM;
+        this.historyLimit = 0;
+        this.simultaneous = false;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.metrics = new Metrics();
+        this.rotatingRows = 1;
+        this.rotatingColumns = 1;
+        this.rotationPeriod = 0;
+        this.turnChanges = new StringBuilder();
+        this.keyframe = new StringBuilder();
+        this.turnsToKeyframe = 0;
+        this.replayRound = new ArrayList<>();
+        this.replayPosition = 0;
+        this.roundMoves = new HashMap<>();
+    }
+    
+    //phase latencies and throughput recorded so far
+    public Metrics getMetrics() {
+        return metrics;
+    }
+    
+    //play in rounds where every agent decides in parallel, then moves in id order
+    public void setSimultaneous(boolean simultaneous) {
+        this.simultaneous = simultaneous;
+    }
+    
+    public boolean isSimultaneous() {
+        return simultaneous;
+    }
+    
+    //number of threads deciding moves in simultaneous mode
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    //bound the move history of every agent, call before initializeGame, 0 keeps the full history
+    public void setHistoryLimit(int historyLimit) {
+        this.historyLimit = historyLimit;
+    }
+    
+    //set how agents pick their moves
+    public void setStrategy(AgentStrategy strategy) {
+        this.strategy = strategy;
+    }
+    
+    public AgentStrategy getStrategy() {
+        return strategy;
     }
     
+    //turn headless mode on or off, call before initializeGame
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
     
-    //parameters
+    public boolean isHeadless() {
+        return headless;
+    }
+    
+    //rotating corridors of the generated maze, call before initializeGame, see MazeManager.setRotatingCorridors
+    public void setRotatingCorridors(int rows, int columns, int period) {
+        this.rotatingRows = rows;
+        this.rotatingColumns = columns;
+        this.rotationPeriod = period;
+    }
+    
+    
+    //parameters, with a random seed
     public void initializeGame(int mazeWidth, int mazeHeight, int numAgents, 
                                double wallDensity, double trapDensity, double powerUpDensity
                                ) {
-        // initialize the maze
-        maze = new MazeManager(mazeWidth, mazeHeight);
+        initializeGame(mazeWidth, mazeHeight, numAgents, wallDensity, trapDensity, powerUpDensity,
+                       new SplittableRandom().nextLong());
+    }
+    
+    //parameters, the same seed replays the same run
+    public void initializeGame(int mazeWidth, int mazeHeight, int numAgents, 
+                               double wallDensity, double trapDensity, double powerUpDensity,
+                               long seed) {
+        long start = System.nanoTime();
+        MazeManager maze = newMaze(mazeWidth, mazeHeight, wallDensity, trapDensity, powerUpDensity, seed,
+                                   rotatingRows, rotatingColumns, rotationPeriod);
+        metrics.record(Metrics.Phase.GENERATION, System.nanoTime() - start);
+        initializeGame(maze, numAgents, seed);
+    }
+    
+    //the maze a run with this seed plays on, save it to replay the run on a loaded maze
+    public static MazeManager newMaze(int mazeWidth, int mazeHeight,
+                                      double wallDensity, double trapDensity, double powerUpDensity,
+                                      long seed) {
+        return newMaze(mazeWidth, mazeHeight, wallDensity, trapDensity, powerUpDensity, seed, 1, 1, 0);
+    }
+    
+    //the same with a number of rotating rows and columns and their longest period, 0 for random rotations
+    public static MazeManager newMaze(int mazeWidth, int mazeHeight,
+                                      double wallDensity, double trapDensity, double powerUpDensity,
+                                      long seed, int rotatingRows, int rotatingColumns, int rotationPeriod) {
+        MazeManager maze = new MazeManager(mazeWidth, mazeHeight, new SplittableRandom(seed).nextLong());
+        maze.setRotatingCorridors(rotatingRows, rotatingColumns, rotationPeriod);
         maze.generateMaze(wallDensity, trapDensity, powerUpDensity);
+        return maze;
+    }
+    
+    //play on a ready maze, for example one loaded from a file
+    public void initializeGame(MazeManager maze, int numAgents, long seed) {
+        int[] dimensions = maze.getDimensions();
+        int mazeWidth = dimensions[0];
+        int mazeHeight = dimensions[1];
+        
+        // large mazes are never rendered and agents only keep recent positions
+        if (isLargeScale(mazeWidth, mazeHeight)) {
+            headless = true;
+            if (historyLimit == 0) {
+                historyLimit = LARGE_MAZE_HISTORY;
+            }
+        }
+        
+        // independent streams for the maze and for every agent, the first value seeded the maze
+        // in newMaze. a loaded maze rotates from it too, as the maze generated from this seed would
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        maze.seedRotations(root.nextLong());
+        this.maze = maze;
         
         // initialize the turn manager
         turns = new TurnManager();
         
         // initalizing agents
         for (int i = 0; i < numAgents; i++) {
-            Agent agent = new Agent(i, 0, 0); // All agents start at the top-left corner
+            Agent agent = new Agent(i, 0, 0, mazeWidth, root.split()); // All agents start at the top-left corner
+            agent.setHistoryLimit(historyLimit);
             maze.addAgent(agent);
             turns.addAgent(agent);
         }
         
+        if (headless) {
+            return;
+        }
         System.out.println("Game initialized with " + numAgents + " agents.");
         System.out.println("Maze size: " + mazeWidth + "x" + mazeHeight);
+        System.out.println("Seed: " + seed);
         System.out.println("Initial maze state:");
         System.out.println(maze.printMazeSnapshot());
     }
     
+    //true when a maze of this size runs in large-scale mode
+    public static boolean isLargeScale(int mazeWidth, int mazeHeight) {
+        return (long) mazeWidth * mazeHeight >= LARGE_MAZE_CELLS;
+    }
+    
     // running simulation
     public void runSimulation() {
-        System.out.println("Starting simulation...");
+        if (!headless) {
+            System.out.println("Starting simulation...");
+        }
         
+        playTurns();
+        
+        if (!headless) {
+            System.out.println("Simulation completed after " + turnCount + " turns.");
+        }
+        printFinalStatistics();
+    }
+    
+    //plays turns until every agent finished or max turns reached, without final statistics
+    public void playTurns() {
+        int startTurns = turnCount;
+        long startNanos = System.nanoTime();
+        long startAllocated = Metrics.threadAllocatedBytes();
+        
+        if (simultaneous) {
+            playRounds();
+        } else {
+            playSequentialTurns();
+        }
+        
+        long allocated = startAllocated < 0 ? -1 : Metrics.threadAllocatedBytes() - startAllocated;
+        metrics.recordPlay(turnCount - startTurns, System.nanoTime() - startNanos, allocated);
+    }
+    
+    // one agent at a time in queue order, a corridor rotates after every turn
+    private void playSequentialTurns() {
         while (!turns.allAgentsFinished() && turnCount < maxTurns) {
             // next agents turn
             Agent currentAgent = turns.advanceTurn();
@@ -57,22 +248,249 @@ public class GameController {
             }
             
             turnCount++;
+            MazeEvents.Turn event = new MazeEvents.Turn();
+            event.begin();
             
             // process agent action
-            String action = processAgentAction(currentAgent);
+            long start = System.nanoTime();
+            int decision = decideAction(currentAgent, null);
+            String action = applyAction(currentAgent, decision);
+            metrics.record(Metrics.Phase.ACTION, System.nanoTime() - start);
+            
+            // Every turn, rotate a corridor
+            if (headless) {
+                rotateCorridor();
+                recordTurn(currentAgent, decision, turnEffects);
+                endTurn(event, currentAgent, action);
+                continue;
+            }
             
             // Log the action
-            turns.logTurnSummary(currentAgent, action, maze.printMazeSnapshot(), turnCount);
+            logTurn(currentAgent, action);
             
-            // Every turn, rotate a corridor
-            String rotationResult = maze.rotateRandomCorridor();
+            String rotationResult = rotateCorridor();
+            recordTurn(currentAgent, decision, turnEffects);
+            turns.logRotation(rotationResult);
             System.out.println("Turn " + turnCount + ": " + rotationResult);
             System.out.println("Look for '*' to see which corridor was rotated:");
-            System.out.println(maze.printMazeSnapshot());
+            System.out.println(snapshot());
+            endTurn(event, currentAgent, action);
         }
-        
-        System.out.println("Simulation completed after " + turnCount + " turns.");
-        printFinalStatistics();
+    }
+    
+    // timed parts of a turn
+    private String rotateCorridor() {
+        long start = System.nanoTime();
+        String result = maze.rotateCorridors();
+        metrics.record(Metrics.Phase.ROTATION, System.nanoTime() - start);
+        return result;
+    }
+    
+    private String snapshot() {
+        long start = System.nanoTime();
+        String snapshot = maze.printMazeSnapshot();
+        metrics.record(Metrics.Phase.SNAPSHOT, System.nanoTime() - start);
+        return snapshot;
+    }
+    
+    // the turn's changes, and every KEYFRAME_INTERVAL turns the full maze state
+    private void logTurn(Agent agent, String action) {
+        CharSequence state = null;
+        if (turnsToKeyframe == 0) {
+            long start = System.nanoTime();
+            keyframe.setLength(0);
+            maze.appendKeyframe(keyframe);
+            metrics.record(Metrics.Phase.SNAPSHOT, System.nanoTime() - start);
+            state = keyframe;
+            turnsToKeyframe = KEYFRAME_INTERVAL;
+        }
+        turnsToKeyframe--;
+        long start = System.nanoTime();
+        turns.logTurnSummary(agent, action, turnChanges, state, turnCount);
+        metrics.record(Metrics.Phase.LOG, System.nanoTime() - start);
+    }
+    
+    // write the turn and the rotation that followed it to the replay file
+    private void recordTurn(Agent agent, int action, int effects) {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            if (maze.isRotationScheduled()) {
+                recorder.record(agent, action, effects, ReplayRecord.ROTATED_SCHEDULE, maze.getLastRotationCount());
+            } else {
+                recorder.record(agent, action, effects,
+                                maze.lastRotationWasRow() ? ReplayRecord.ROTATED_ROW : ReplayRecord.ROTATED_COLUMN,
+                                maze.getLastRotationIndex());
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing replay file: " + e.getMessage());
+            closeReplayFile();
+        }
+    }
+    
+    private void endTurn(MazeEvents.Turn event, Agent agent, String action) {
+        if (event.shouldCommit()) {
+            event.turn = turnCount;
+            event.agent = agent.getId();
+            event.action = action;
+            event.commit();
+        }
+    }
+    
+    // simultaneous mode: every agent of a round decides against the same maze, which nobody changes
+    // while the decisions run, then the actions are applied in agent id order. a move into a cell an
+    // earlier agent moved to this round, or into the cell an earlier agent just left for this agent's
+    // cell, is blocked and the agent waits. one corridor rotates per turn played, after the round
+    private void playRounds() {
+        if (strategy == AgentStrategy.A_STAR) {
+            maze.ensureConnectivityIndex();
+        } else if (strategy == AgentStrategy.DISTANCE_FIELD) {
+            maze.ensureDistanceField();
+        }
+        AStarPlanner[] planners = new AStarPlanner[parallelism];  // one per decision task, never shared
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<Agent> round = new ArrayList<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        try {
+            while (!turns.allAgentsFinished() && turnCount < maxTurns) {
+                turns.nextRound(round);
+                round.sort(Comparator.comparingInt(Agent::getId));
+                int playing = Math.min(round.size(), maxTurns - turnCount);
+                
+                // decide in parallel, each task takes a contiguous slice of the round
+                long decideStart = System.nanoTime();
+                int[] actions = new int[playing];
+                int chunk = (playing + parallelism - 1) / parallelism;
+                tasks.clear();
+                for (int t = 0; t * chunk < playing; t++) {
+                    int task = t;
+                    int from = t * chunk;
+                    int to = Math.min(playing, from + chunk);
+                    tasks.add(pool.submit(() -> {
+                        if (planners[task] == null && strategy == AgentStrategy.A_STAR) {
+                            planners[task] = maze.newPlanner();
+                        }
+                        for (int i = from; i < to; i++) {
+                            actions[i] = decideAction(round.get(i), planners[task]);
+                        }
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+                metrics.record(Metrics.Phase.ROUND_DECISIONS, System.nanoTime() - decideStart);
+                
+                // apply in id order
+                int[] effects = new int[playing];
+                roundMoves.clear();
+                for (int i = 0; i < playing; i++) {
+                    Agent agent = round.get(i);
+                    turnCount++;
+                    MazeEvents.Turn event = new MazeEvents.Turn();
+                    event.begin();
+                    long start = System.nanoTime();
+                    String action = applyAction(agent, actions[i]);
+                    effects[i] = turnEffects;
+                    metrics.record(Metrics.Phase.ACTION, System.nanoTime() - start);
+                    if (!headless) {
+                        logTurn(agent, action);
+                    }
+                    endTurn(event, agent, action);
+                }
+                
+                // the maze changes only between rounds
+                for (int i = 0; i < playing; i++) {
+                    String rotationResult = rotateCorridor();
+                    recordTurn(round.get(i), actions[i], effects[i]);
+                    if (!headless) {
+                        turns.logRotation(rotationResult);
+                        System.out.println("Round " + turns.getCurrentRound() + ": " + rotationResult);
+                    }
+                }
+                if (!headless && playing > 0) {
+                    System.out.println("Look for '*' to see which corridor was rotated:");
+                    System.out.println(snapshot());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    //replay recorded turns instead of deciding them, until lastTurn has been played and rotated.
+    //turn order follows the same queue and rounds as playTurns, so the run ends up exactly as recorded
+    public void replayTurns(Replayer replay, int lastTurn) throws IOException {
+        while (turnCount < lastTurn) {
+            Agent agent;
+            if (simultaneous) {
+                if (replayPosition == replayRound.size()) {
+                    turns.nextRound(replayRound);
+                    replayRound.sort(Comparator.comparingInt(Agent::getId));
+                    int playing = Math.min(replayRound.size(), maxTurns - turnCount);
+                    replayRound.subList(playing, replayRound.size()).clear();
+                    replayPosition = 0;
+                    roundMoves.clear();
+                    if (playing == 0) {
+                        throw new IllegalStateException("Replay diverged at turn " + (turnCount + 1) + ": no agent left to play");
+                    }
+                }
+                agent = replayRound.get(replayPosition++);
+            } else {
+                agent = turns.advanceTurn();
+                while (agent == null || agent.hasReachedGoal()) {
+                    if (turns.allAgentsFinished()) {
+                        throw new IllegalStateException("Replay diverged at turn " + (turnCount + 1) + ": no agent left to play");
+                    }
+                    agent = turns.advanceTurn();
+                }
+            }
+            
+            turnCount++;
+            ReplayRecord record = replay.getRecord(turnCount);
+            if (record.getAgentId() != agent.getId()) {
+                throw new IllegalStateException("Replay diverged at turn " + turnCount + ": agent "
+                                                + agent.getId() + " plays, agent " + record.getAgentId() + " recorded");
+            }
+            applyAction(agent, record.getAction());
+            if (agent.getCurrentX() != record.getX() || agent.getCurrentY() != record.getY()) {
+                throw new IllegalStateException("Replay diverged at turn " + turnCount + ": agent "
+                                                + agent.getId() + " is not at (" + record.getX() + "," + record.getY() + ")");
+            }
+            
+            // rounds rotate once every action of the round is applied
+            if (!simultaneous) {
+                replayRotation(record);
+            } else if (replayPosition == replayRound.size()) {
+                for (int turn = turnCount - replayRound.size() + 1; turn <= turnCount; turn++) {
+                    replayRotation(replay.getRecord(turn));
+                }
+            }
+        }
+    }
+    
+    // scheduled rotations are replayed from the maze's own schedule, the record only checks them
+    private void replayRotation(ReplayRecord record) {
+        if (maze.isRotationScheduled() != record.isScheduledRotation()) {
+            throw new IllegalStateException("Replay diverged at turn " + turnCount + ": rotation mode differs");
+        }
+        if (record.isScheduledRotation()) {
+            maze.rotateCorridors();
+            if (maze.getLastRotationCount() != record.getRotationIndex()) {
+                throw new IllegalStateException("Replay diverged at turn " + turnCount + ": "
+                                                + maze.getLastRotationCount() + " corridors rotated, "
+                                                + record.getRotationIndex() + " recorded");
+            }
+        } else if (record.isRowRotation()) {
+            maze.rotateRow(record.getRotationIndex());
+        } else {
+            maze.rotateColumn(record.getRotationIndex());
+        }
+    }
+    
+    //statistics of the run so far
+    public SimulationResult getResult() {
+        return new SimulationResult(seed, turnCount, maze.getAgents(), metrics);
     }
     
     /**
@@ -81,45 +499,127 @@ public class GameController {
      * @return Description of the action taken
      */
     public String processAgentAction(Agent agent) {
+        return applyAction(agent, decideAction(agent, null));
+    }
+    
+    // pick the agent's action without changing the maze: a direction ordinal, USE_POWER_UP or WAIT.
+    // only the agent's own random stream is advanced, so agents can decide on different threads
+    private int decideAction(Agent agent, AStarPlanner planner) {
         // If agent has a power-up, 30% chance to use it
-        if (agent.hasPowerUp() && random.nextDouble() < 0.3) {
-            agent.applyPowerUp();
-            return "used a power-up";
+        if (agent.hasPowerUp() && agent.getRandom().nextDouble() < 0.3) {
+            return USE_POWER_UP;
         }
         
+        // Goal-seeking agents follow a shortest path when there is one
+        if (strategy == AgentStrategy.A_STAR) {
+            Direction direction = planner == null
+                ? maze.nextDirectionToGoal(agent.getCurrentX(), agent.getCurrentY())
+                : maze.nextDirectionToGoal(agent.getCurrentX(), agent.getCurrentY(), planner);
+            if (direction != null) {
+                return direction.ordinal();
+            }
+        }
         
+        // or read the next step off the field every agent shares
+        if (strategy == AgentStrategy.DISTANCE_FIELD) {
+            Direction direction = maze.nextDirectionDownhill(agent.getCurrentX(), agent.getCurrentY());
+            if (direction != null) {
+                return direction.ordinal();
+            }
+        }
         
         // Try to move in a random direction
-        String[] shuffledDirections = shuffleDirections();
-        boolean moved = false;
-        
-        for (String direction : shuffledDirections) {
+        for (Direction direction : Direction.randomOrder(agent.getRandom())) {
             if (maze.isValidMove(agent.getCurrentX(), agent.getCurrentY(), direction)) {
-                int oldX = agent.getCurrentX();
-                int oldY = agent.getCurrentY();
-                
-                agent.move(direction);
-                maze.updateAgentLocation(agent, oldX, oldY);
-                
-                // Check if the agent landed on a trap
-                MazeTile currentTile = maze.getTile(agent.getCurrentX(), agent.getCurrentY());
-                if (currentTile.getType() == 'T') {
-                    // Trigger trap effect
-                    String trapEffect = checkTileEffect(agent, currentTile);
-                    return "moved " + direction + " to (" + agent.getCurrentX() + "," + 
-                           agent.getCurrentY() + ") and " + trapEffect;
-                }
-                
-                moved = true;
-                return "moved " + direction + " to (" + agent.getCurrentX() + "," + agent.getCurrentY() + ")";
+                return direction.ordinal();
             }
         }
         
-        if (!moved) {
+        return WAIT;
+    }
+    
+    // carry out a decided action
+    private String applyAction(Agent agent, int action) {
+        turnChanges.setLength(0);
+        turnEffects = 0;
+        if (action == USE_POWER_UP) {
+            agent.applyPowerUp();
+            turnEffects = ReplayRecord.POWER_UP_USED;
+            return "used a power-up";
+        }
+        if (action == WAIT) {
             return "waited (no valid moves)";
         }
+        Direction direction = DIRECTIONS[action];
+        if (!simultaneous) {
+            return moveAgent(agent, direction);
+        }
         
-        return "took no action";
+        // the move was decided before the earlier agents of the round moved
+        long from = cellKey(agent.getCurrentX(), agent.getCurrentY());
+        long to = cellKey(agent.getCurrentX() + direction.getDx(), agent.getCurrentY() + direction.getDy());
+        Long arrivedFrom = roundMoves.get(from);
+        if (roundMoves.containsKey(to) || (arrivedFrom != null && arrivedFrom == to)) {
+            turnEffects = ReplayRecord.BLOCKED;
+            return "waited (move " + direction + " blocked by another agent)";
+        }
+        String result = moveAgent(agent, direction);
+        roundMoves.put(cellKey(agent.getCurrentX(), agent.getCurrentY()), from);
+        return result;
+    }
+    
+    private static long cellKey(int x, int y) {
+        return (long) x << 32 | y;
+    }
+    
+    // moves the agent one step and applies the tile it lands on
+    private String moveAgent(Agent agent, Direction direction) {
+        int oldX = agent.getCurrentX();
+        int oldY = agent.getCurrentY();
+        MazeTile landing = maze.getTile(oldX + direction.getDx(), oldY + direction.getDy());
+        char landingType = landing.getType();
+        
+        agent.move(direction);
+        maze.updateAgentLocation(agent, oldX, oldY);
+        
+        // Check if the agent landed on a trap
+        MazeTile currentTile = maze.getTile(agent.getCurrentX(), agent.getCurrentY());
+        String result;
+        if (currentTile.getType() == 'T') {
+            // Trigger trap effect
+            String trapEffect = checkTileEffect(agent, currentTile);
+            result = "moved " + direction + " to (" + agent.getCurrentX() + "," + 
+                     agent.getCurrentY() + ") and " + trapEffect;
+        } else {
+            result = "moved " + direction + " to (" + agent.getCurrentX() + "," + agent.getCurrentY() + ")";
+        }
+        
+        turnEffects = ReplayRecord.MOVED;
+        if (landingType == 'T') {
+            turnEffects |= ReplayRecord.TRAP;
+        } else if (landingType == 'P') {
+            turnEffects |= ReplayRecord.POWER_UP_COLLECTED;
+        }
+        if (agent.hasReachedGoal()) {
+            turnEffects |= ReplayRecord.REACHED_GOAL;
+        }
+        
+        // for the turn log: where the agent ended up and the tile it used up, if any
+        if (!headless) {
+            turnChanges.append("agent ").append(agent.getId()).append(" ")
+                       .append(agent.getCurrentX()).append(" ").append(agent.getCurrentY());
+            if (landing.getType() != landingType) {
+                turnChanges.append("; tile ").append(landing.getX()).append(" ").append(landing.getY())
+                           .append(" ").append(landing.getType());
+            }
+
+            // a trap's backtrack collects any power-up on the cell it ends on
+            if (landingType == 'T') {
+                turnChanges.append("; tile ").append(agent.getCurrentX()).append(" ").append(agent.getCurrentY())
+                           .append(" ").append(maze.getTile(agent.getCurrentX(), agent.getCurrentY()).getType());
+            }
+        }
+        return result;
     }
     
     /**
@@ -131,7 +631,9 @@ public class GameController {
     public String checkTileEffect(Agent agent, MazeTile tile) {
         switch (tile.getType()) {
             case 'T': // Trap
-                System.out.println("Agent " + agent.getId() + " triggered a trap!");
+                if (!headless) {
+                    System.out.println("Agent " + agent.getId() + " triggered a trap!");
+                }
                 agent.backtrackMultiple(2);
                 maze.updateAgentLocation(agent, -1, -1); // Force update
                 tile.setType('E'); // Remove the trap
@@ -139,13 +641,17 @@ public class GameController {
                        agent.getCurrentX() + "," + agent.getCurrentY() + ")";
                 
             case 'P': // Power-up
-                System.out.println("Agent " + agent.getId() + " collected a power-up!");
+                if (!headless) {
+                    System.out.println("Agent " + agent.getId() + " collected a power-up!");
+                }
                 agent.setHasPowerUp(true);
                 tile.setType('E'); // Remove the power-up
                 return "collected a power-up";
                 
             case 'G': // Goal
-                System.out.println("Agent " + agent.getId() + " reached the goal!");
+                if (!headless) {
+                    System.out.println("Agent " + agent.getId() + " reached the goal!");
+                }
                 agent.setHasReachedGoal(true);
                 return "reached the goal!";
                 
@@ -160,6 +666,8 @@ public class GameController {
     public void printFinalStatistics() {
         System.out.println("\n===== FINAL STATISTICS =====");
         System.out.println("Total turns executed: " + turnCount);
+        System.out.println("Rounds completed: " + turns.getCurrentRound());
+        System.out.println("Seed: " + seed);
         
         // Print finished agents
         System.out.println("\nAgents who reached the goal:");
@@ -209,84 +717,172 @@ public class GameController {
         System.out.printf("Power-up usage rate: %.2f%%\n", 
                          (double)totalPowerUpsUsed / (double)turnCount * 100);
         
+        // Print timing
+        System.out.println("\n" + metrics.summary());
+        
         // Print maze final state
+        if (headless) {
+            return;
+        }
         System.out.println("\nFinal maze state (rotating corridors marked with '*'):");
         System.out.println(maze.printMazeSnapshot());
     }
     
-    //logs the game summary to a file
+    //opens the log file and streams every turn to it as it happens, call after initializeGame
+    public void openLogFile(String filename) {
+        try {
+            logWriter = new TurnLogWriter(filename);
+            logPath = Paths.get(filename).toAbsolutePath().normalize();
+            logWriter.writeLine("===== MAZE ESCAPE SIMULATION LOG =====");
+            logWriter.write("Total turns: ");
+            totalTurnsPosition = logWriter.position();
+            logWriter.writeLine(totalTurns());
+            logWriter.writeLine("Seed: " + seed);
+            logWriter.writeLine("\n===== TURN LOGS =====");
+            logWriter.flush();
+            turns.setLogWriter(logWriter);
+        } catch (IOException e) {
+            System.err.println("Error writing to log file: " + e.getMessage());
+            closeLogFile();
+        }
+    }
+    
+    //logs the game summary to a file, completes and closes the streamed log if one is open
     public void logGameSummaryToFile(String filename) {
+        if (logWriter != null) {
+            if (!logPath.equals(Paths.get(filename).toAbsolutePath().normalize())) {
+                throw new IllegalArgumentException("Log file " + logPath + " is open, not " + filename);
+            }
+            StringWriter summary = new StringWriter();
+            try (PrintWriter writer = new PrintWriter(summary)) {
+                writeSummary(writer);
+            }
+            try {
+                logWriter.write(summary.getBuffer());
+                logWriter.writeAt(totalTurnsPosition, totalTurns());
+            } catch (IOException e) {
+                System.err.println("Error writing to log file: " + e.getMessage());
+            }
+            closeLogFile();
+            return;
+        }
+        
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
             writer.println("===== MAZE ESCAPE SIMULATION LOG =====");
-            writer.println("Total turns: " + turnCount);
+            writer.println("Total turns: " + totalTurns());
+            writer.println("Seed: " + seed);
             
             // Write turn logs
             writer.println("\n===== TURN LOGS =====");
             for (String log : turns.getTurnLogs()) {
                 writer.println(log);
-                // Add a note about rotating corridors
-                if (log.contains("Rotated")) {
-                    writer.println("(Rotating corridors are marked with '*' on the borders)");
-                }
             }
             
-            // Write finished agents
-            writer.println("\n===== AGENTS WHO REACHED THE GOAL =====");
-            for (int i = 0; i < turns.getFinishedAgents().size(); i++) {
-                Agent agent = turns.getFinishedAgents().get(i);
-                writer.println((i+1) + ". Agent " + agent.getId() + 
-                              " (in " + agent.getTotalMoves() + " moves)");
-            }
-            
-            // Write agent statistics
-            writer.println("\n===== AGENT PERFORMANCE =====");
-            writer.println("----------------------------------");
-            writer.println("| Agent | Moves | Backtracks | Traps | Power-ups Used | Reached Goal |");
-            writer.println("----------------------------------");
-            
-            int totalPowerUpsUsed = 0;
-            for (Agent agent : maze.getAgents()) {
-                int powerUpsUsed = agent.getPowerUpsUsed();
-                totalPowerUpsUsed += powerUpsUsed;
-                
-                writer.printf("| %5d | %5d | %10d | %5d | %13d | %12s |\n",
-                              agent.getId(),
-                              agent.getTotalMoves(),
-                              agent.getBacktracks(),
-                              agent.getTrapsTriggered(),
-                              powerUpsUsed,
-                              agent.hasReachedGoal() ? "Yes" : "No");
-            }
-            writer.println("----------------------------------");
-            
-            // Write power-up statistics
-            writer.println("\n===== POWER-UP STATISTICS =====");
-            writer.printf("Total power-ups used: %d\n", totalPowerUpsUsed);
-            writer.printf("Average power-ups per agent: %.2f\n", (double)totalPowerUpsUsed / maze.getAgents().size());
-            writer.printf("Power-up usage rate: %.2f%%\n", 
-                         (double)totalPowerUpsUsed / (double)turnCount * 100);
-            
-            // Write final maze state
-            writer.println("\n===== FINAL MAZE STATE =====");
-            writer.println(maze.printMazeSnapshot());
+            writeSummary(writer);
+        } catch (IOException e) {
+            System.err.println("Error writing to log file: " + e.getMessage());
+        }
+    }
+    
+    //turn count padded to the width of maxTurns, so the streamed header can be filled in place
+    private String totalTurns() {
+        return String.format("%-" + String.valueOf(maxTurns).length() + "d", turnCount);
+    }
+    
+    //records every turn played from now on to a binary replay file, see Replayer
+    public void openReplayFile(String filename, SimulationConfig config) {
+        try {
+            recorder = new ReplayRecorder(filename, config);
+        } catch (IOException e) {
+            System.err.println("Error writing replay file: " + e.getMessage());
+        }
+    }
+    
+    //flushes and closes the replay file
+    public void closeReplayFile() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("Error writing replay file: " + e.getMessage());
+        }
+        recorder = null;
+    }
+    
+    //flushes and closes the streamed log
+    public void closeLogFile() {
+        if (logWriter == null) {
+            return;
+        }
+        try {
+            logWriter.close();
         } catch (IOException e) {
             System.err.println("Error writing to log file: " + e.getMessage());
         }
+        logWriter = null;
+        logPath = null;
+        turns.setLogWriter(null);
     }
     
-    //shuffles the directions array for random movement selection
-    private String[] shuffleDirections() {
-        String[] shuffled = DIRECTIONS.clone();
+    //writes finished agents, agent statistics and the final maze
+    private void writeSummary(PrintWriter writer) {
+        // Write finished agents
+        writer.println("\n===== AGENTS WHO REACHED THE GOAL =====");
+        for (int i = 0; i < turns.getFinishedAgents().size(); i++) {
+            Agent agent = turns.getFinishedAgents().get(i);
+            writer.println((i+1) + ". Agent " + agent.getId() + 
+                          " (in " + agent.getTotalMoves() + " moves)");
+        }
         
-        // Fisher-Yates shuffle
-        for (int i = shuffled.length - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
-            String temp = shuffled[i];
-            shuffled[i] = shuffled[j];
-            shuffled[j] = temp;
+        // Write agent statistics
+        writer.println("\n===== AGENT PERFORMANCE =====");
+        writer.println("----------------------------------");
+        writer.println("| Agent | Moves | Backtracks | Traps | Power-ups Used | Reached Goal |");
+        writer.println("----------------------------------");
+        
+        int totalPowerUpsUsed = 0;
+        for (Agent agent : maze.getAgents()) {
+            int powerUpsUsed = agent.getPowerUpsUsed();
+            totalPowerUpsUsed += powerUpsUsed;
+            
+            writer.printf("| %5d | %5d | %10d | %5d | %13d | %12s |\n",
+                          agent.getId(),
+                          agent.getTotalMoves(),
+                          agent.getBacktracks(),
+                          agent.getTrapsTriggered(),
+                          powerUpsUsed,
+                          agent.hasReachedGoal() ? "Yes" : "No");
         }
+        writer.println("----------------------------------");
+        
+        // Write power-up statistics
+        writer.println("\n===== POWER-UP STATISTICS =====");
+        writer.printf("Total power-ups used: %d\n", totalPowerUpsUsed);
+        writer.printf("Average power-ups per agent: %.2f\n", (double)totalPowerUpsUsed / maze.getAgents().size());
+        writer.printf("Power-up usage rate: %.2f%%\n", 
+                     (double)totalPowerUpsUsed / (double)turnCount * 100);
+        
+        // Write timing
+        writer.println("\n" + metrics.summary());
         
-        return shuffled;
+        // Write final maze state
+        writer.println("\n===== FINAL MAZE STATE =====");
+        int[] dimensions = maze.getDimensions();
+        if (isLargeScale(dimensions[0], dimensions[1])) {
+            writer.println("(" + dimensions[0] + "x" + dimensions[1] + " maze not rendered in large-scale mode)");
+        } else {
+            writer.println(maze.printMazeSnapshot());
+        }
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public MazeManager getMaze() {
+        return maze;
     }
 
     public int getTurnCount() {
@@ -0,0 +1,70 @@
+//first in first out queue of ints on a growable ring buffer, for breadth first frontiers
+public class IntQueue {
+    private int[] elements;
+    private int front;  // slot of the first element
+    private int size;
+    
+    public IntQueue() {
+        this(16);
+    }
+    
+    public IntQueue(int capacity) {
+        elements = new int[Math.max(capacity, 2)];
+        front = 0;
+        size = 0;
+    }
+    
+    public void enqueue(int x) {
+        if (size == elements.length) {
+            grow();
+        }
+        int slot = front + size;
+        if (slot >= elements.length) {
+            slot -= elements.length;
+        }
+        elements[slot] = x;
+        size++;
+    }
+    
+    //dequeue the first element, the queue must not be empty
+    public int dequeue() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        int data = elements[front];
+        front = front + 1 == elements.length ? 0 : front + 1;
+        size--;
+        return data;
+    }
+    
+    //first element, the queue must not be empty
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        return elements[front];
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        front = 0;
+        size = 0;
+    }
+    
+    // double the capacity with the first element at slot 0
+    private void grow() {
+        int[] grown = new int[elements.length * 2];
+        for (int i = 0; i < size; i++) {
+            grown[i] = elements[(front + i) % elements.length];
+        }
+        elements = grown;
+        front = 0;
+    }
+}
\ No newline at end of file
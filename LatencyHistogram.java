@@ -0,0 +1,70 @@
+//latencies in power of two buckets of nanoseconds, constant memory however many are recorded
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private long[] counts;  // bucket i holds latencies below 2^i and at least 2^(i-1), bucket 0 holds 0
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[64 - Long.numberOfLeadingZeros(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    //add every latency of the other histogram
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        totalNanos += other.totalNanos;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    //upper bound of the bucket holding the given fraction of latencies, at most the maximum
+    public long percentileNanos(double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : Math.min(maxNanos, (1L << i) - 1);
+            }
+        }
+        return maxNanos;
+    }
+
+    // count, mean, p50, p99 and max in microseconds
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.1fus, p50 <=%.1fus, p99 <=%.1fus, max %.1fus",
+                             count, getMeanNanos() / 1000, percentileNanos(0.5) / 1000.0,
+                             percentileNanos(0.99) / 1000.0, maxNanos / 1000.0);
+    }
+}
@@ -0,0 +1,440 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+//runs simulations without prompts: every MazeSimulation question is an option given on the
+//command line, in a properties file (--config) or on the lines of a batch file (--batch).
+//every batch line is one configuration over the command line options, all played in one JVM
+//  java -cp out MazeCommandLine --width 40 --height 30 --agents 8 --seed 7 --runs 100 --format csv
+//  java -cp out MazeCommandLine --config base.properties --batch runs.txt
+public class MazeCommandLine {
+    private static final List<String> OPTIONS = Arrays.asList(
+            "config", "batch", "maze-file", "save-maze", "width", "height", "agents", "walls", "traps",
+            "power-ups", "rotating-rows", "rotating-columns", "rotation-period", "max-turns", "strategy",
+            "simultaneous", "headless", "seed", "runs", "format", "log", "replay");
+    private static final List<String> MAZE_FILE_OPTIONS = Arrays.asList(
+            "width", "height", "walls", "traps", "power-ups", "rotating-rows", "rotating-columns",
+            "rotation-period", "save-maze");
+    private static final List<String> FLAGS = Arrays.asList("simultaneous", "headless");
+    private static final List<String> BOOLEANS = Arrays.asList("true", "yes", "y", "false", "no", "n");
+    private static final String USAGE =
+            "Usage: java MazeCommandLine [--option value]...\n"
+            + "  --config <file>           properties file of options, the command line overrides it\n"
+            + "  --batch <file>            one configuration of options per line, # starts a comment\n"
+            + "  --maze-file <file>        play on a saved maze, its size, densities, rotating corridors\n"
+            + "                            and save-maze cannot be set with it\n"
+            + "  --save-maze <file>        save the generated maze and play every run on it\n"
+            + "  --width, --height <n>     maze size, default 20x15\n"
+            + "  --agents <n>              default 4\n"
+            + "  --walls, --traps, --power-ups <density>  default 0.2, 0.1, 0.05\n"
+            + "  --rotating-rows, --rotating-columns <n>  default 1 and 1\n"
+            + "  --rotation-period <n>     longest rotation period, default 0, one random corridor per turn\n"
+            + "  --max-turns <n>           default 500\n"
+            + "  --strategy <name>         random, a-star or distance-field, default random\n"
+            + "  --simultaneous [true|false], --headless [true|false]  default false and true,\n"
+            + "                            csv output always runs headless\n"
+            + "  --seed <n>                default random\n"
+            + "  --runs <n>                independent runs of the configuration, default 1\n"
+            + "  --format <text|csv>       default text\n"
+            + "  --log <file>              turn log of a single run, batch report of several\n"
+            + "  --replay <file>           replay file of a single run";
+
+    private Properties options;  // command line options over the config file
+    private boolean csv;
+
+    //constructor with the options every configuration starts from
+    public MazeCommandLine(Properties options) {
+        this.options = options;
+        this.csv = format(options).equals("csv");
+    }
+
+    //runs the command line configuration, or every configuration of the batch file
+    public void run() throws IOException {
+        // every line is resolved before any runs, so a bad option or value fails the batch before it starts
+        List<Job> jobs = new ArrayList<>();
+        String batch = options.getProperty("batch");
+        if (batch == null) {
+            jobs.add(resolve(options, jobs));
+        } else {
+            List<String> lines = Files.readAllLines(Paths.get(batch), StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    Properties configuration = parse(line.split("\\s+"), new Properties(options));
+                    if (configuration.containsKey("batch") || configuration.containsKey("config")
+                            || !format(configuration).equals(format(options))) {
+                        throw new IllegalArgumentException("batch, config and format are not set per line");
+                    }
+                    jobs.add(resolve(configuration, jobs));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(batch + " line " + (i + 1) + ": " + e.getMessage());
+                } catch (IOException e) {
+                    throw new IOException(batch + " line " + (i + 1) + ": "
+                            + (e instanceof NoSuchFileException ? "no such file " : "") + e.getMessage(), e);
+                }
+            }
+        }
+
+        if (csv) {
+            System.out.println(SimulationConfig.CSV_HEADER + "," + BatchReport.CSV_HEADER);
+        }
+        // consecutive single runs that only print a CSV row play in parallel, everything else in line order
+        List<Job> pending = new ArrayList<>();
+        for (Job job : jobs) {
+            if (csv && job.runs == 1 && job.logFilename == null && job.replayFilename == null
+                    && job.saveFilename == null) {
+                pending.add(job);
+                continue;
+            }
+            runPending(pending);
+            runJob(job);
+        }
+        runPending(pending);
+    }
+
+    // the configuration of a line and what to do with it, every value checked
+    private Job resolve(Properties configuration, List<Job> earlier) throws IOException {
+        String mazeFile = configuration.getProperty("maze-file");
+        int width;
+        int height;
+        double wallDensity;
+        double trapDensity;
+        double powerUpDensity;
+        int rotatingRows;
+        int rotatingColumns;
+        int rotationPeriod;
+        if (mazeFile != null) {
+            // the maze file decides its layout
+            for (String name : MAZE_FILE_OPTIONS) {
+                if (configuration.getProperty(name) != null) {
+                    throw new IllegalArgumentException(name + " cannot be set with maze-file, the file decides it");
+                }
+            }
+            Job saving = savedBy(mazeFile, earlier);
+            if (saving != null) {
+                // an earlier line saves this maze before it is played
+                SimulationConfig saved = saving.config;
+                width = saved.getMazeWidth();
+                height = saved.getMazeHeight();
+                wallDensity = saved.getWallDensity();
+                trapDensity = saved.getTrapDensity();
+                powerUpDensity = saved.getPowerUpDensity();
+                rotatingRows = saved.getRotatingRows();
+                rotatingColumns = saved.getRotatingColumns();
+                rotationPeriod = saved.getRotationPeriod();
+            } else {
+                MazeManager loaded = MazeManager.loadMaze(mazeFile);
+                width = loaded.getDimensions()[0];
+                height = loaded.getDimensions()[1];
+                // densities are not in the file
+                wallDensity = Double.NaN;
+                trapDensity = Double.NaN;
+                powerUpDensity = Double.NaN;
+                rotatingRows = loaded.getRotatingRowCount();
+                rotatingColumns = loaded.getRotatingColumnCount();
+                rotationPeriod = loaded.getRotationPeriod();
+            }
+        } else {
+            width = intOption(configuration, "width", 20, 6, MazeSimulation.MAX_SIDE);
+            int maxHeight = (int) Math.min(MazeSimulation.MAX_SIDE, MazeGrid.MAX_CELLS / width);
+            height = intOption(configuration, "height", 15, 6, maxHeight);
+            wallDensity = doubleOption(configuration, "walls", 0.2, 0.0, 0.5);
+            trapDensity = doubleOption(configuration, "traps", 0.1, 0.0, 0.2);
+            powerUpDensity = doubleOption(configuration, "power-ups", 0.05, 0.0, 0.1);
+            rotatingRows = intOption(configuration, "rotating-rows", 1, 0, height - 2);
+            rotatingColumns = intOption(configuration, "rotating-columns", 1, rotatingRows == 0 ? 1 : 0, width - 2);
+            rotationPeriod = intOption(configuration, "rotation-period", 0, 0, MazeManager.MAX_ROTATION_PERIOD);
+        }
+        int numAgents = intOption(configuration, "agents", 4, 1, MazeSimulation.MAX_AGENTS);
+        int maxTurns = intOption(configuration, "max-turns", 500, 50, MazeSimulation.MAX_TURNS);
+        AgentStrategy strategy = strategyOption(configuration);
+        boolean simultaneous = booleanOption(configuration, "simultaneous", false);
+        boolean headless = booleanOption(configuration, "headless", true);
+        long seed = seedOption(configuration);
+        int runs = intOption(configuration, "runs", 1, 1, MazeSimulation.MAX_RUNS);
+        String replayFilename = configuration.getProperty("replay");
+        if (replayFilename != null && runs > 1) {
+            throw new IllegalArgumentException("replay needs a single run, got " + runs);
+        }
+        String saveFilename = configuration.getProperty("save-maze");
+
+        SimulationConfig config = new SimulationConfig(width, height, numAgents,
+                                                       wallDensity, trapDensity, powerUpDensity,
+                                                       maxTurns, seed);
+        config.setStrategy(strategy);
+        config.setMazeFile(saveFilename != null ? saveFilename : mazeFile);
+        config.setSimultaneous(simultaneous);
+        config.setRotatingCorridors(rotatingRows, rotatingColumns, rotationPeriod);
+        return new Job(config, runs, headless, configuration.getProperty("log"), replayFilename, saveFilename);
+    }
+
+    // the last of the earlier lines that saves its maze to the file, or null
+    private static Job savedBy(String mazeFile, List<Job> earlier) {
+        Path path = Paths.get(mazeFile).toAbsolutePath().normalize();
+        for (int i = earlier.size() - 1; i >= 0; i--) {
+            String saveFilename = earlier.get(i).saveFilename;
+            if (saveFilename != null && Paths.get(saveFilename).toAbsolutePath().normalize().equals(path)) {
+                return earlier.get(i);
+            }
+        }
+        return null;
+    }
+
+    // single runs together on every core, one CSV row each in line order
+    private void runPending(List<Job> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<SimulationConfig> configs = new ArrayList<>();
+        for (Job job : pending) {
+            configs.add(job.config);
+        }
+        List<SimulationResult> results = new BatchRunner().runEach(configs);
+        for (int i = 0; i < results.size(); i++) {
+            BatchReport report = new BatchReport();
+            report.add(results.get(i));
+            System.out.println(configs.get(i).toCsv() + "," + report.toCsv());
+        }
+        pending.clear();
+    }
+
+    // one configuration: a single game, or a parallel batch of independent runs
+    private void runJob(Job job) throws IOException {
+        SimulationConfig config = job.config;
+
+        // generate the maze this seed gives and save it
+        MazeManager loadedMaze = null;
+        if (job.saveFilename != null) {
+            loadedMaze = GameController.newMaze(config.getMazeWidth(), config.getMazeHeight(),
+                                                config.getWallDensity(), config.getTrapDensity(),
+                                                config.getPowerUpDensity(), config.getSeed(),
+                                                config.getRotatingRows(), config.getRotatingColumns(),
+                                                config.getRotationPeriod());
+            loadedMaze.saveMaze(job.saveFilename);
+            if (!csv) {
+                System.out.println("Maze saved to " + job.saveFilename);
+            }
+        }
+
+        if (job.runs > 1) {
+            BatchReport report = new BatchRunner().run(config, job.runs);
+            if (csv) {
+                System.out.println(config.toCsv() + "," + report.toCsv());
+            } else {
+                System.out.println("\nConfiguration: " + config);
+                System.out.print(report.summary());
+            }
+            if (job.logFilename != null) {
+                MazeSimulation.writeBatchReport(job.logFilename, config, report);
+            }
+            return;
+        }
+
+        // a single game, large mazes always run headless and so does CSV output
+        boolean headless = job.headless || csv || GameController.isLargeScale(config.getMazeWidth(), config.getMazeHeight());
+        if (!csv) {
+            System.out.println("\nConfiguration: " + config);
+        }
+        if (loadedMaze == null && config.getMazeFile() != null) {
+            loadedMaze = MazeManager.loadMaze(config.getMazeFile());
+        }
+        GameController controller = MazeSimulation.newGame(config, loadedMaze, headless);
+        if (job.logFilename != null) {
+            controller.openLogFile(job.logFilename);
+        }
+        if (job.replayFilename != null) {
+            controller.openReplayFile(job.replayFilename, config);
+        }
+        if (csv) {
+            controller.playTurns();
+        } else {
+            controller.runSimulation();
+        }
+        controller.closeReplayFile();
+        if (job.logFilename != null) {
+            controller.logGameSummaryToFile(job.logFilename);
+        }
+        if (csv) {
+            BatchReport report = new BatchReport();
+            report.add(controller.getResult());
+            System.out.println(config.toCsv() + "," + report.toCsv());
+        }
+    }
+
+    //options of the arguments over the given defaults: "--name value", "--name=value" or "name=value",
+    //flags may leave out the value to mean true
+    public static Properties parse(String[] args, Properties options) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String name;
+            String value = null;
+            if (arg.startsWith("--")) {
+                name = arg.substring(2);
+            } else if (arg.contains("=")) {
+                name = arg;
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = name.indexOf('=');
+            if (equals >= 0) {
+                value = name.substring(equals + 1);
+                name = name.substring(0, equals);
+            } else if (FLAGS.contains(name)) {
+                boolean given = i + 1 < args.length
+                        && BOOLEANS.contains(args[i + 1].toLowerCase(Locale.ROOT));
+                value = given ? args[++i] : "true";
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            }
+            if (!OPTIONS.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: " + name);
+            }
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value of " + name);
+            }
+            options.setProperty(name, value);
+        }
+        return options;
+    }
+
+    private static String format(Properties options) {
+        String format = options.getProperty("format", "text").toLowerCase(Locale.ROOT);
+        if (!format.equals("text") && !format.equals("csv")) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        return format;
+    }
+
+    private static int intOption(Properties options, String name, int defaultValue, int min, int max) {
+        String value = options.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be an integer between " + min + " and " + max + ": " + value);
+    }
+
+    private static double doubleOption(Properties options, String name, double defaultValue, double min, double max) {
+        String value = options.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be a number between " + min + " and " + max + ": " + value);
+    }
+
+    private static boolean booleanOption(Properties options, String name, boolean defaultValue) {
+        String value = options.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int index = BOOLEANS.indexOf(value.trim().toLowerCase(Locale.ROOT));
+        if (index < 0) {
+            throw new IllegalArgumentException(name + " must be true or false: " + value);
+        }
+        return index < 3;
+    }
+
+    // a strategy name, with - or _ between words, or its number in the prompt
+    private static AgentStrategy strategyOption(Properties options) {
+        String value = options.getProperty("strategy", "random").trim();
+        for (AgentStrategy strategy : AgentStrategy.values()) {
+            if (strategy.name().equalsIgnoreCase(value.replace('-', '_'))
+                    || value.equals(String.valueOf(strategy.ordinal() + 1))) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + value);
+    }
+
+    // a missing seed picks a random one, printed with the configuration
+    private static long seedOption(Properties options) {
+        String value = options.getProperty("seed");
+        if (value == null) {
+            return new SplittableRandom().nextLong();
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("seed must be an integer: " + value);
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            Properties options = parse(args, new Properties());
+
+            // the config file holds defaults the command line overrides
+            String configFile = options.getProperty("config");
+            if (configFile != null) {
+                Properties file = new Properties();
+                try (Reader reader = Files.newBufferedReader(Paths.get(configFile), StandardCharsets.UTF_8)) {
+                    file.load(reader);
+                }
+                for (String name : file.stringPropertyNames()) {
+                    if (!OPTIONS.contains(name) || name.equals("config")) {
+                        throw new IllegalArgumentException(configFile + ": unknown option " + name);
+                    }
+                }
+                Properties merged = new Properties(file);
+                merged.putAll(options);
+                options = merged;
+            }
+            new MazeCommandLine(options).run();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + (e instanceof NoSuchFileException ? "no such file " : "") + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    //a resolved line of the batch, or the command line configuration
+    private static class Job {
+        private final SimulationConfig config;
+        private final int runs;
+        private final boolean headless;
+        private final String logFilename;
+        private final String replayFilename;
+        private final String saveFilename;  // generate the maze and save it here before playing
+
+        private Job(SimulationConfig config, int runs, boolean headless,
+                    String logFilename, String replayFilename, String saveFilename) {
+            this.config = config;
+            this.runs = runs;
+            this.headless = headless;
+            this.logFilename = logFilename;
+            this.replayFilename = replayFilename;
+            this.saveFilename = saveFilename;
+        }
+    }
+}
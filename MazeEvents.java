@@ -0,0 +1,63 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//flight recorder events of the simulation, record them with
+//  java -XX:StartFlightRecording:filename=maze.jfr -cp out MazeSimulation
+public final class MazeEvents {
+    private MazeEvents() {
+    }
+    
+    @Name("maze.Generation")
+    @Label("Maze Generation")
+    @Category("Maze")
+    public static class Generation extends Event {
+        @Label("Width")
+        public int width;
+        
+        @Label("Height")
+        public int height;
+        
+        @Label("Seed")
+        public long seed;
+    }
+    
+    @Name("maze.Turn")
+    @Label("Turn")
+    @Category("Maze")
+    public static class Turn extends Event {
+        @Label("Turn")
+        public int turn;
+        
+        @Label("Agent")
+        public int agent;
+        
+        @Label("Action")
+        public String action;
+    }
+    
+    @Name("maze.Rotation")
+    @Label("Corridor Rotation")
+    @Category("Maze")
+    public static class Rotation extends Event {
+        @Label("Row")
+        public boolean row;  // false for a column
+        
+        @Label("Line")
+        public int line;
+        
+        @Label("Direction")
+        public int direction;  // 1 or -1
+    }
+    
+    @Name("maze.LogFlush")
+    @Label("Turn Log Flush")
+    @Category("Maze")
+    public static class LogFlush extends Event {
+        @Label("Bytes")
+        @DataAmount
+        public int bytes;
+    }
+}
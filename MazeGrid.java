@@ -0,0 +1,485 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+//packed cell storage for the maze, one byte per cell on the heap,
+//large grids pack two cells per byte off the java heap
+public class MazeGrid {
+    // cell type codes kept in the low bits of each cell
+    public static final byte EMPTY = 0;
+    public static final byte WALL = 1;
+    public static final byte TRAP = 2;
+    public static final byte POWER_UP = 3;
+    public static final byte GOAL = 4;
+
+    private static final int TYPE_MASK = 0x07;
+    private static final int MARK = 0x08;  // scratch flag for searches over the grid
+    private static final long MARK_BITS = 0x8888888888888888L;
+
+    //largest number of cells a grid can hold
+    public static final long MAX_CELLS = Integer.MAX_VALUE - 1;
+    //grids with at least this many cells are stored off heap by default
+    public static final long OFF_HEAP_CELLS = 1 << 24;
+
+    private final int width;
+    private final int height;
+    // exactly one of the two stores is used
+    private final byte[] heapCells;  // cell i in byte i
+    private ByteBuffer offHeapCells;  // cell i in the low nibble of byte i/2 when i is even, the high nibble when odd
+    private final int[] rowOffsets;  // logical shift of each rotating row
+    private final int[] columnOffsets;  // logical shift of each column over the rows that do not rotate
+    private final boolean[] rowRotates;  // rows whose cells are addressed through their own offset
+    private int[] rowRank;  // position of a row that does not rotate among those rows
+    private int[] rankedRow;  // the rows that do not rotate, in order
+    private int[] rotatingRows;  // the rows that rotate, in order
+    private int rotatingRowCount;
+    private boolean ranksStale;  // rows were added since the three arrays above were built
+    private int shiftedColumns;  // columns with a non-zero offset
+    private final OccupancyIndex occupancy;  // agents by logical cell
+    private TraversableBitboard bitboard;  // isReachable scratch, refilled by every query
+
+    //constructor, every cell starts empty
+    public MazeGrid(int width, int height) {
+        this(width, height, (long) width * height >= OFF_HEAP_CELLS);
+    }
+
+    //constructor, off heap cells do not count against the java heap limit
+    public MazeGrid(int width, int height, boolean offHeap) {
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Maze too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.heapCells = offHeap ? null : new byte[width * height];
+        this.offHeapCells = offHeap ? ByteBuffer.allocateDirect((width * height + 1) / 2) : null;
+        this.rowOffsets = new int[height];
+        this.columnOffsets = new int[width];
+        this.rowRotates = new boolean[height];
+        this.ranksStale = true;
+        this.occupancy = new OccupancyIndex();
+    }
+
+    //constructor over cells packed two per byte as written by writePackedCells,
+    //large grids use the buffer in place so a mapped file opens without copying.
+    //a read-only buffer is copied off heap the first time a cell changes
+    public MazeGrid(int width, int height, ByteBuffer packedCells) {
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Maze too large: " + width + "x" + height);
+        }
+        int bytes = (width * height + 1) / 2;
+        if (packedCells.remaining() < bytes) {
+            throw new IllegalArgumentException("Expected " + bytes + " bytes of cells, got " + packedCells.remaining());
+        }
+        this.width = width;
+        this.height = height;
+        if ((long) width * height >= OFF_HEAP_CELLS) {
+            ByteBuffer body = packedCells.duplicate();
+            body.limit(body.position() + bytes);
+            this.heapCells = null;
+            this.offHeapCells = body.slice();
+        } else {
+            this.heapCells = new byte[width * height];
+            this.offHeapCells = null;
+            int at = packedCells.position();
+            for (int i = 0; i < heapCells.length; i++) {
+                int packed = packedCells.get(at + (i >> 1));
+                heapCells[i] = (byte) (((i & 1) == 0 ? packed : packed >> 4) & TYPE_MASK);
+            }
+        }
+        this.rowOffsets = new int[height];
+        this.columnOffsets = new int[width];
+        this.rowRotates = new boolean[height];
+        this.ranksStale = true;
+        this.occupancy = new OccupancyIndex();
+    }
+
+    //number of bytes writePackedCells produces
+    public int packedSize() {
+        return (width * height + 1) / 2;
+    }
+
+    //write every cell in storage order, two per byte without marks, starting at the buffer position
+    public void writePackedCells(ByteBuffer target) {
+        int at = target.position();
+        if (heapCells != null) {
+            for (int i = 0; i < heapCells.length; i += 2) {
+                int high = i + 1 < heapCells.length ? heapCells[i + 1] & TYPE_MASK : 0;
+                target.put(at + (i >> 1), (byte) ((heapCells[i] & TYPE_MASK) | high << 4));
+            }
+            return;
+        }
+        int bytes = offHeapCells.capacity();
+        int i = 0;
+        for (; i + 8 <= bytes; i += 8) {
+            target.putLong(at + i, offHeapCells.getLong(i) & ~MARK_BITS);
+        }
+        for (; i < bytes; i++) {
+            target.put(at + i, (byte) (offHeapCells.get(i) & 0x77));
+        }
+    }
+
+    //flat index of a cell, coordinates are implicit from the index
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    // storage slot of a logical cell. a rotating row keeps all its cells in its own storage row,
+    // a column rotates through the storage of the rows that do not rotate, its cells on rotating
+    // rows are moved by the column shift itself, so shifts compose in the order they happen
+    private int cell(int x, int y) {
+        if (rowRotates[y]) {
+            int px = x + rowOffsets[y];
+            if (px >= width) {
+                px -= width;
+            }
+            return y * width + px;
+        }
+        int offset = columnOffsets[x];
+        if (offset == 0) {
+            return y * width + x;
+        }
+        int rank = rowRank[y] + offset;
+        if (rank >= rankedRow.length) {
+            rank -= rankedRow.length;
+        }
+        return rankedRow[rank] * width + x;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // type and mark bits of a storage slot
+    private int load(int slot) {
+        if (heapCells != null) {
+            return heapCells[slot];
+        }
+        int packed = offHeapCells.get(slot >> 1);
+        return (slot & 1) == 0 ? packed & 0x0F : (packed >> 4) & 0x0F;
+    }
+
+    private void store(int slot, int nibble) {
+        if (heapCells != null) {
+            heapCells[slot] = (byte) nibble;
+            return;
+        }
+        if (offHeapCells.isReadOnly()) {
+            ByteBuffer shared = offHeapCells.duplicate();
+            shared.clear();
+            offHeapCells = ByteBuffer.allocateDirect(shared.capacity()).put(shared);
+        }
+        int at = slot >> 1;
+        int packed = offHeapCells.get(at);
+        if ((slot & 1) == 0) {
+            packed = (packed & 0xF0) | nibble;
+        } else {
+            packed = (packed & 0x0F) | (nibble << 4);
+        }
+        offHeapCells.put(at, (byte) packed);
+    }
+
+    public boolean isOffHeap() {
+        return offHeapCells != null;
+    }
+
+    //get type of the cell as a maze character
+    public char getType(int x, int y) {
+        return decode(load(cell(x, y)) & TYPE_MASK);
+    }
+
+    //set type of the cell, keeps its mark
+    public void setType(int x, int y, char type) {
+        int slot = cell(x, y);
+        byte code = encode(type);
+        store(slot, (load(slot) & MARK) | code);
+    }
+
+    //true when a path of traversable cells joins the two cells, both must be traversable.
+    //the bitboard is refilled from the storage rows for the query, so shifts and edits never pay to keep it current
+    public boolean isReachable(int startX, int startY, int goalX, int goalY) {
+        if (bitboard == null) {
+            bitboard = new TraversableBitboard(width, height);
+        }
+        for (int y = 0; y < height; y++) {
+            fillBitboardRow(y);
+        }
+        return bitboard.isReachable(startX, startY, goalX, goalY);
+    }
+
+    // one row into the bitboard in a single pass along its storage row, 64 cells per word.
+    // only cells of shifted columns on rows that do not rotate are looked up one by one
+    private void fillBitboardRow(int y) {
+        boolean rotates = rowRotates[y];
+        boolean inRow = rotates || shiftedColumns == 0;  // every cell of the row sits in storage row y
+        int base = y * width;
+        int px = rotates ? rowOffsets[y] : 0;
+        int x = 0;
+        for (int word = 0; x < width; word++) {
+            int end = Math.min(width, x + 64);
+            long bits = 0;
+            for (int bit = 0; x < end; x++, bit++) {
+                int type;
+                if (inRow && heapCells != null) {
+                    type = heapCells[base + px];
+                } else {
+                    type = load(inRow || columnOffsets[x] == 0 ? base + px : cell(x, y));
+                }
+                // without a branch, walls are too random to predict
+                int open = (type & TYPE_MASK) ^ WALL;
+                bits |= (long) ((open | -open) >>> 31) << bit;
+                if (++px == width) {
+                    px = 0;
+                }
+            }
+            bitboard.setWord(y, word, bits);
+        }
+    }
+
+    // only walls are not traversable
+    public boolean isTraversable(int x, int y) {
+        return (load(cell(x, y)) & TYPE_MASK) != WALL;
+    }
+
+    //search mark of the cell, it moves with the cell when a corridor rotates
+    public boolean isMarked(int x, int y) {
+        return (load(cell(x, y)) & MARK) != 0;
+    }
+
+    //set the search mark of the cell, false when it was already set
+    public boolean mark(int x, int y) {
+        int slot = cell(x, y);
+        int bits = load(slot);
+        if ((bits & MARK) != 0) {
+            return false;
+        }
+        store(slot, bits | MARK);
+        return true;
+    }
+
+    //clear the mark of every cell
+    public void clearMarks() {
+        if (heapCells != null) {
+            for (int i = 0; i < heapCells.length; i++) {
+                heapCells[i] &= 0x77;
+            }
+            return;
+        }
+        if (offHeapCells.isReadOnly()) {
+            return;  // nothing was ever stored, so nothing is marked
+        }
+        int bytes = offHeapCells.capacity();
+        int i = 0;
+        for (; i + 8 <= bytes; i += 8) {
+            offHeapCells.putLong(i, offHeapCells.getLong(i) & ~MARK_BITS);
+        }
+        for (; i < bytes; i++) {
+            offHeapCells.put(i, (byte) (offHeapCells.get(i) & 0x77));
+        }
+    }
+
+    // agents stay on their logical cell when a corridor rotates under them
+    public boolean hasAgent(int x, int y) {
+        return occupancy.isOccupied(index(x, y));
+    }
+
+    public OccupancyIndex getOccupancy() {
+        return occupancy;
+    }
+
+    //set every cell to the given type, clear marks, agents and rotations
+    public void fill(char type) {
+        int code = encode(type);
+        byte packed = (byte) (code | code << 4);
+        if (heapCells != null) {
+            Arrays.fill(heapCells, (byte) code);
+        } else {
+            long word = (packed & 0xFFL) * 0x0101010101010101L;
+            if (offHeapCells.isReadOnly()) {
+                offHeapCells = ByteBuffer.allocateDirect(offHeapCells.capacity());
+            }
+            int bytes = offHeapCells.capacity();
+            int i = 0;
+            for (; i + 8 <= bytes; i += 8) {
+                offHeapCells.putLong(i, word);
+            }
+            for (; i < bytes; i++) {
+                offHeapCells.put(i, packed);
+            }
+        }
+        occupancy.clear();
+        Arrays.fill(rowOffsets, 0);
+        Arrays.fill(columnOffsets, 0);
+        Arrays.fill(rowRotates, false);
+        rotatingRowCount = 0;
+        ranksStale = true;
+        shiftedColumns = 0;
+    }
+
+    //let row y rotate, only before any column was shifted. at least one row must not rotate
+    public void setRotatingRow(int y) {
+        if (rowRotates[y]) {
+            return;
+        }
+        if (shiftedColumns > 0) {
+            throw new IllegalStateException("Rows cannot start rotating after columns were shifted");
+        }
+        if (rotatingRowCount + 1 == height) {
+            throw new IllegalArgumentException("At least one row must not rotate");
+        }
+        rowRotates[y] = true;
+        rotatingRowCount++;
+        ranksStale = true;
+    }
+
+    public boolean isRotatingRow(int y) {
+        return rowRotates[y];
+    }
+
+    //rotate a row by one cell, the cell at x+1 moves to x
+    public void shiftRow(int y) {
+        checkRotatingRow(y);
+        rowOffsets[y] = rowOffsets[y] + 1 == width ? 0 : rowOffsets[y] + 1;
+    }
+
+    //rotate a row the other way, the cell at x moves to x+1
+    public void shiftRowBack(int y) {
+        checkRotatingRow(y);
+        rowOffsets[y] = rowOffsets[y] == 0 ? width - 1 : rowOffsets[y] - 1;
+    }
+
+    //rotate a column by one cell, the cell at y+1 moves to y
+    public void shiftColumn(int x) {
+        updateRanks();
+        setColumnShift(x, columnOffsets[x] + 1 == rankedRow.length ? 0 : columnOffsets[x] + 1);
+
+        // the offset skipped the rotating rows, each run of them takes its cells one step further:
+        // the row before the run holds the cell after it, swapping along the run puts every cell in place
+        for (int r = 0; r < rotatingRows.length; r++) {
+            int y = rotatingRows[r];
+            int previous = y == 0 ? height - 1 : y - 1;
+            if (rowRotates[previous]) {
+                continue;
+            }
+            for (; rowRotates[y]; y = y + 1 == height ? 0 : y + 1) {
+                swap(cell(x, previous), cell(x, y));
+                previous = y;
+            }
+        }
+    }
+
+    //rotate a column the other way, the cell at y moves to y+1
+    public void shiftColumnBack(int x) {
+        updateRanks();
+        setColumnShift(x, columnOffsets[x] == 0 ? rankedRow.length - 1 : columnOffsets[x] - 1);
+
+        // the same from the end of each run of rotating rows
+        for (int r = rotatingRows.length - 1; r >= 0; r--) {
+            int y = rotatingRows[r];
+            int following = y + 1 == height ? 0 : y + 1;
+            if (rowRotates[following]) {
+                continue;
+            }
+            for (; rowRotates[y]; y = y == 0 ? height - 1 : y - 1) {
+                swap(cell(x, following), cell(x, y));
+                following = y;
+            }
+        }
+    }
+
+    private void setColumnShift(int x, int offset) {
+        if ((columnOffsets[x] == 0) != (offset == 0)) {
+            shiftedColumns += offset == 0 ? -1 : 1;
+        }
+        columnOffsets[x] = offset;
+    }
+
+    private void swap(int first, int second) {
+        int bits = load(first);
+        store(first, load(second));
+        store(second, bits);
+    }
+
+    // rank the rows that do not rotate, the column offsets count through them
+    private void updateRanks() {
+        if (!ranksStale) {
+            return;
+        }
+        rowRank = new int[height];
+        rankedRow = new int[height - rotatingRowCount];
+        rotatingRows = new int[rotatingRowCount];
+        int ranked = 0;
+        int rotating = 0;
+        for (int y = 0; y < height; y++) {
+            if (rowRotates[y]) {
+                rotatingRows[rotating++] = y;
+            } else {
+                rowRank[y] = ranked;
+                rankedRow[ranked++] = y;
+            }
+        }
+        ranksStale = false;
+    }
+
+    private void checkRotatingRow(int y) {
+        if (!rowRotates[y]) {
+            throw new IllegalStateException("Row " + y + " does not rotate");
+        }
+    }
+
+    public int getRowOffset(int y) {
+        return rowOffsets[y];
+    }
+
+    public int getColumnOffset(int x) {
+        return columnOffsets[x];
+    }
+
+    //restore a saved row shift, the row must rotate
+    public void setRowOffset(int y, int offset) {
+        checkRotatingRow(y);
+        rowOffsets[y] = Math.floorMod(offset, width);
+    }
+
+    //restore a saved column shift, counted over the rows that do not rotate
+    public void setColumnOffset(int x, int offset) {
+        updateRanks();
+        setColumnShift(x, Math.floorMod(offset, rankedRow.length));
+    }
+
+    //maze character to type code
+    public static byte encode(char type) {
+        switch (type) {
+            case 'E':
+                return EMPTY;
+            case 'W':
+                return WALL;
+            case 'T':
+                return TRAP;
+            case 'P':
+                return POWER_UP;
+            case 'G':
+                return GOAL;
+            default:
+                throw new IllegalArgumentException("Invalid tile type: " + type);
+        }
+    }
+
+    //type code to maze character
+    public static char decode(int code) {
+        switch (code) {
+            case WALL:
+                return 'W';
+            case TRAP:
+                return 'T';
+            case POWER_UP:
+                return 'P';
+            case GOAL:
+                return 'G';
+            default:
+                return 'E';
+        }
+    }
+}
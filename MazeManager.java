@@ -1,90 +1,106 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 // manage maze structure
 public class MazeManager {
-    private MazeTile[][] grid;
+    private MazeGrid grid;
     private int width;
     private int height;
     private List<Agent> agents;
-    private List<CircularLinkedList<MazeTile>> rotatingRows;
-    private List<CircularLinkedList<MazeTile>> rotatingColumns;
-    private Random random;
-    private int rotatingRowIndex;  //  which row is rotating
-    private int rotatingColumnIndex;  // which column is rotating
+    private List<Integer> rotatingRows;
+    private List<Integer> rotatingColumns;
+    private long seed;
+    private SplittableRandom random;  // maze generation stream
+    private SplittableRandom rotationRandom;  // corridor rotation stream
+    private SplittableRandom corridorRandom;  // extra rotating corridors and their schedules
+    private boolean[] rowRotates;  // rotating rows and columns, marked with '*' in snapshots
+    private boolean[] columnRotates;
+    private boolean lastRotationRow;  // axis and index of the corridor rotateRandomCorridor rotated last
+    private int lastRotationIndex;
     
-    //constructor with given parameters
+    // rotating corridors: how many, and in scheduled mode the period and direction of each
+    private int rotatingRowCount;
+    private int rotatingColumnCount;
+    private int rotationPeriod;  // longest period, 0 rotates one random corridor per turn instead
+    private RotationWheel rotationWheel;  // scheduled mode only, rows first, then columns
+    private int[] corridorDirection;  // 1 or -1 for every scheduled corridor
+    private int lastRotationCount;  // corridors the last scheduled turn rotated
+    
+    // Prim's generation state, kept to regenerate without allocating
+    private int[] frontier;  // packed cell indices of frontier walls
+    private int frontierSize;
+    
+    private static final Direction[] DIRECTIONS = Direction.values();
+    
+    // binary maze file: header of big-endian ints, then the cells packed two per byte
+    private static final int FILE_MAGIC = 0x4D415A45;  // "MAZE"
+    private static final int FILE_VERSION = 3;  // 2 added the rotation schedule, 3 shifts in turn order, 1 and 2 are still read
+    public static final int MAX_ROTATION_PERIOD = 1 << 20;  // the rotation wheel has a slot per turn of it
+    private int[] directionDeltas;  // flat index delta of each direction on this grid
+    private AStarPlanner planner;  // created on first use, sized for this maze
+    private ConnectivityIndex connectivity;  // created on first reachability query, then kept up to date
+    private DistanceField distanceField;  // created on first distance query, then repaired after each rotation
+    
+    //constructor with given parameters and a random seed
     public MazeManager(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.grid = new MazeTile[height][width];
+        this(width, height, new SplittableRandom().nextLong());
+    }
+    
+    //constructor with given parameters, the same seed always gives the same maze and rotations
+    public MazeManager(int width, int height, long seed) {
+        this(new MazeGrid(width, height), seed);
+    }
+    
+    // constructor over an existing grid
+    private MazeManager(MazeGrid grid, long seed) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.grid = grid;
         this.agents = new ArrayList<>();
         this.rotatingRows = new ArrayList<>();
         this.rotatingColumns = new ArrayList<>();
-        this.random = new Random();
-        this.rotatingRowIndex = -1;
-        this.rotatingColumnIndex = -1;
-        
-        // Initialize the grid with empty tiles
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                grid[y][x] = new MazeTile(x, y, 'E');
-            }
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        this.random = root.split();
+        this.rotationRandom = root.split();
+        this.corridorRandom = root.split();
+        this.rowRotates = new boolean[height];
+        this.columnRotates = new boolean[width];
+        this.rotatingRowCount = 1;
+        this.rotatingColumnCount = 1;
+        this.rotationPeriod = 0;
+        this.directionDeltas = new int[DIRECTIONS.length];
+        for (Direction direction : DIRECTIONS) {
+            directionDeltas[direction.ordinal()] = direction.indexDelta(width);
         }
     }
     
     //generate random maze 
     public void generateMaze(double wallDensity, double trapDensity, double powerUpDensity) {
-        // First, create a grid of walls
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                grid[y][x] = new MazeTile(x, y, 'W');
-            }
-        }
+        MazeEvents.Generation event = new MazeEvents.Generation();
+        event.begin();
         
-        // Create a path from start to goal using Prim's algorithm
-        boolean[][] visited = new boolean[height][width];
-        Stack<int[]> walls = new Stack<>();
+        // First, create a grid of walls
+        grid.fill('W');
         
-        // Start from the top-left corner
-        int startX = 0;
-        int startY = 0;
-        visited[startY][startX] = true;
-        grid[startY][startX].setType('E');
-        
-        // Add walls of the starting cell
-        addWalls(startX, startY, walls, visited);
-        
-        while (!walls.isEmpty()) {
-            // Pick a random wall
-            int randomIndex = random.nextInt(walls.size());
-            int[] wall = (int[])walls.peek();
-            walls.pop();
-            int x = wall[0];
-            int y = wall[1];
-            
-            // Count visited neighbors
-            int visitedNeighbors = 0;
-            if (x > 0 && visited[y][x-1]) visitedNeighbors++;
-            if (x < width-1 && visited[y][x+1]) visitedNeighbors++;
-            if (y > 0 && visited[y-1][x]) visitedNeighbors++;
-            if (y < height-1 && visited[y+1][x]) visitedNeighbors++;
-            
-            // If this wall separates an unvisited cell from a visited cell
-            if (visitedNeighbors == 1) {
-                grid[y][x].setType('E');
-                visited[y][x] = true;
-                
-                // Add walls of the new cell
-                addWalls(x, y, walls, visited);
-            }
-        }
+        // Create a path from start to goal using randomized Prim's algorithm
+        carveWithPrim();
         
         // Place the goal at the bottom-right corner
         int goalX = width - 1;
         int goalY = height - 1;
-        grid[goalY][goalX].setType('G');
+        grid.setType(goalX, goalY, 'G');
         
         // Create a path to the goal
         createPathToGoal();
@@ -98,11 +114,26 @@ public class MazeManager {
         // Set up rotating rows and columns
         setupRotatingRows();
         setupRotatingColumns();
+        setupRotationSchedule();
         
         // Verify goal is still accessible
         if (!isGoalAccessible()) {
             clearPathToGoal();
         }
+        
+        if (connectivity != null) {
+            connectivity.rebuild();
+        }
+        if (distanceField != null) {
+            distanceField.rebuild();
+        }
+        
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.seed = seed;
+            event.commit();
+        }
     }
     
 
@@ -110,20 +141,20 @@ public class MazeManager {
     private void ensureBordersFilled() {
         // Fill top border
         for (int x = 0; x < width; x++) {
-            if (grid[0][x].getType() == 'E') {
+            if (grid.getType(x, 0) == 'E') {
                 // 70% chance to place a wall
                 if (random.nextDouble() < 0.7) {
-                    grid[0][x].setType('W');
+                    grid.setType(x, 0, 'W');
                 }
             }
         }
         
         // Fill right border
         for (int y = 0; y < height; y++) {
-            if (grid[y][width-1].getType() == 'E') {
+            if (grid.getType(width-1, y) == 'E') {
                 // 70% chance to place a wall
                 if (random.nextDouble() < 0.7) {
-                    grid[y][width-1].setType('W');
+                    grid.setType(width-1, y, 'W');
                 }
             }
         }
@@ -134,20 +165,64 @@ public class MazeManager {
         }
     }
     
-    private void addWalls(int x, int y, Stack<int[]> walls, boolean[][] visited) {
-        // Add unvisited neighboring walls
-        if (x > 0 && !visited[y][x-1]) {
-            walls.push(new int[]{x-1, y});
+    // randomized Prim's over packed cell indices: a random frontier wall is carved
+    // when exactly one of its neighbors is already part of the maze.
+    // carved cells are the empty ones and frontier walls carry the grid mark, so no per-cell state is allocated
+    private void carveWithPrim() {
+        if (frontier == null) {
+            frontier = new int[Math.min(width * height, 1024)];
         }
-        if (x < width-1 && !visited[y][x+1]) {
-            walls.push(new int[]{x+1, y});
+        frontierSize = 0;
+        
+        // Start from the top-left corner
+        grid.setType(0, 0, 'E');
+        addFrontier(0);
+        
+        while (frontierSize > 0) {
+            // Pick a random frontier wall, swap-remove it
+            int pick = random.nextInt(frontierSize);
+            int cell = frontier[pick];
+            frontier[pick] = frontier[--frontierSize];
+            int x = cell % width;
+            int y = cell / width;
+            
+            // Count carved neighbors
+            int carvedNeighbors = 0;
+            if (x > 0 && grid.isTraversable(x - 1, y)) carvedNeighbors++;
+            if (x < width-1 && grid.isTraversable(x + 1, y)) carvedNeighbors++;
+            if (y > 0 && grid.isTraversable(x, y - 1)) carvedNeighbors++;
+            if (y < height-1 && grid.isTraversable(x, y + 1)) carvedNeighbors++;
+            
+            // A wall touching two carved cells stays a wall for good,
+            // carved neighbors only ever increase
+            if (carvedNeighbors == 1) {
+                grid.setType(x, y, 'E');
+                addFrontier(cell);
+            }
         }
-        if (y > 0 && !visited[y-1][x]) {
-            walls.push(new int[]{x, y-1});
+        
+        // leave no marks behind for later searches
+        grid.clearMarks();
+    }
+    
+    // queue untouched neighbors of a carved cell, each cell enters the frontier once
+    private void addFrontier(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        if (x > 0) pushFrontier(cell - 1, x - 1, y);
+        if (x < width-1) pushFrontier(cell + 1, x + 1, y);
+        if (y > 0) pushFrontier(cell - width, x, y - 1);
+        if (y < height-1) pushFrontier(cell + width, x, y + 1);
+    }
+    
+    private void pushFrontier(int cell, int x, int y) {
+        if (grid.isTraversable(x, y) || !grid.mark(x, y)) {
+            return;
         }
-        if (y < height-1 && !visited[y+1][x]) {
-            walls.push(new int[]{x, y+1});
+        if (frontierSize == frontier.length) {
+            frontier = Arrays.copyOf(frontier, frontier.length * 2);
         }
+        frontier[frontierSize++] = cell;
     }
     
     private void createPathToGoal() {
@@ -168,11 +243,11 @@ public class MazeManager {
             }
             
             // Clear the path
-            grid[y][x].setType('E');
+            grid.setType(x, y, 'E');
         }
         
         // make sure goal is set
-        grid[height-1][width-1].setType('G');
+        grid.setType(width-1, height-1, 'G');
     }
     
     private void addRandomWalls(double wallDensity) {
@@ -184,9 +259,9 @@ public class MazeManager {
                 }
                 
                 // Only add walls to empty spaces
-                if (grid[y][x].getType() == 'E') {
+                if (grid.getType(x, y) == 'E') {
                     if (random.nextDouble() < wallDensity) {
-                        grid[y][x].setType('W');
+                        grid.setType(x, y, 'W');
                     }
                 }
             }
@@ -202,145 +277,246 @@ public class MazeManager {
                 }
                 
                 // Only add traps and power-ups to empty spaces
-                if (grid[y][x].getType() == 'E') {
+                if (grid.getType(x, y) == 'E') {
                     double roll = random.nextDouble();
                     if (roll < trapDensity) {
-                        grid[y][x].setType('T');
+                        grid.setType(x, y, 'T');
                     } else if (roll < trapDensity + powerUpDensity) {
-                        grid[y][x].setType('P');
+                        grid.setType(x, y, 'P');
                     }
                 }
             }
         }
     }
     
-    private class Node implements Comparable<Node> {
-        int x, y;
-        double g, h, f;
-        Node parent;
-        
-        Node(int x, int y, double g, double h, Node parent) {
-            this.x = x;
-            this.y = y;
-            this.g = g;
-            this.h = h;
-            this.f = g + h;
-            this.parent = parent;
+    //how many rows and columns rotate and how, call before generateMaze. a period of 0 rotates one
+    //random corridor per turn, otherwise every corridor rotates on its own, every 1 to period turns,
+    //always in the same direction
+    public void setRotatingCorridors(int rows, int columns, int period) {
+        if (rows < 0 || rows > height - 2 || columns < 0 || columns > width - 2 || rows + columns == 0) {
+            throw new IllegalArgumentException("Invalid rotating corridors: " + rows + " rows, " + columns + " columns");
         }
-        
-        @Override
-        public int compareTo(Node other) {
-            return Double.compare(this.f, other.f);
+        if (period < 0 || period > MAX_ROTATION_PERIOD) {
+            throw new IllegalArgumentException("Invalid rotation period: " + period);
         }
+        this.rotatingRowCount = rows;
+        this.rotatingColumnCount = columns;
+        this.rotationPeriod = period;
     }
     
     //for rotating corridors as rows
     private void setupRotatingRows() {
         rotatingRows.clear();
+        Arrays.fill(rowRotates, false);
+        if (rotatingRowCount == 0) {
+            return;
+        }
         
         // Select random row to rotate (not the first or last row)
-        rotatingRowIndex = 1 + random.nextInt(height - 2);
-        CircularLinkedList<MazeTile> rotatingRow = new CircularLinkedList<>();
-        
-        // Add all tiles from the selected row to the circular list
-        for (int x = 0; x < width; x++) {
-            rotatingRow.add(grid[rotatingRowIndex][x]);
+        addRotatingRow(1 + random.nextInt(height - 2));
+        while (rotatingRows.size() < rotatingRowCount) {
+            int y = 1 + corridorRandom.nextInt(height - 2);
+            if (!rowRotates[y]) {
+                addRotatingRow(y);
+            }
         }
-        rotatingRows.add(rotatingRow);
     }
     
     //for rotating corridors as columns
     private void setupRotatingColumns() {
         rotatingColumns.clear();
+        Arrays.fill(columnRotates, false);
+        if (rotatingColumnCount == 0) {
+            return;
+        }
         
         // Select random column to rotate (not the first or last column)
-        rotatingColumnIndex = 1 + random.nextInt(width - 2);
-        CircularLinkedList<MazeTile> rotatingCol = new CircularLinkedList<>();
-        
-        // Add all tiles from the selected column to the circular list
-        for (int y = 0; y < height; y++) {
-            rotatingCol.add(grid[y][rotatingColumnIndex]);
+        addRotatingColumn(1 + random.nextInt(width - 2));
+        while (rotatingColumns.size() < rotatingColumnCount) {
+            int x = 1 + corridorRandom.nextInt(width - 2);
+            if (!columnRotates[x]) {
+                addRotatingColumn(x);
+            }
         }
-        rotatingColumns.add(rotatingCol);
+    }
+    
+    private void addRotatingRow(int y) {
+        rotatingRows.add(y);
+        rowRotates[y] = true;
+        grid.setRotatingRow(y);
+    }
+    
+    private void addRotatingColumn(int x) {
+        rotatingColumns.add(x);
+        columnRotates[x] = true;
+    }
+    
+    // scheduled mode: a period, a direction and a first turn for every corridor, rows first
+    private void setupRotationSchedule() {
+        if (rotationPeriod == 0) {
+            rotationWheel = null;
+            return;
+        }
+        int corridors = rotatingRows.size() + rotatingColumns.size();
+        int[] period = new int[corridors];
+        int[] firstDue = new int[corridors];
+        corridorDirection = new int[corridors];
+        for (int i = 0; i < corridors; i++) {
+            period[i] = 1 + corridorRandom.nextInt(rotationPeriod);
+            firstDue[i] = 1 + corridorRandom.nextInt(period[i]);
+            corridorDirection[i] = corridorRandom.nextBoolean() ? 1 : -1;
+        }
+        rotationWheel = new RotationWheel(period, firstDue);
     }
     
     //rotate a specific row clockwise
     public void rotateRow(int rowIndex) {
+        rotateRow(rowIndex, 1);
+    }
+    
+    //rotate a specific row by one cell, direction 1 moves the cell at x+1 to x, -1 the other way
+    public void rotateRow(int rowIndex, int direction) {
         if (rowIndex < 0 || rowIndex >= rotatingRows.size()) {
             throw new IndexOutOfBoundsException("Invalid row index: " + rowIndex);
         }
+        MazeEvents.Rotation event = new MazeEvents.Rotation();
+        event.begin();
         
-        CircularLinkedList<MazeTile> row = rotatingRows.get(rowIndex);
-        row.rotateClockwise();  // Rotate the circular linked list
-        
-        // Update the grid with the rotated row
-        List<MazeTile> rotatedTiles = row.getAllElements();
-        for (int x = 0; x < width; x++) {
-            MazeTile tile = rotatedTiles.get(x);
-            tile.setX(x);
-            tile.setY(rotatingRowIndex);
-            grid[rotatingRowIndex][x] = tile;
+        // Only the row offset changes, lookups resolve through it
+        int y = rotatingRows.get(rowIndex);
+        if (direction > 0) {
+            grid.shiftRow(y);
+        } else {
+            grid.shiftRowBack(y);
+        }
+        if (connectivity != null) {
+            connectivity.rowShifted(y);
         }
+        if (distanceField != null) {
+            distanceField.rowShifted(y);
+        }
+        commitRotation(event, true, y, direction);
     }
     
     //rotate a specific column clockwise
     public void rotateColumn(int colIndex) {
+        rotateColumn(colIndex, 1);
+    }
+    
+    //rotate a specific column by one cell, direction 1 moves the cell at y+1 to y, -1 the other way
+    public void rotateColumn(int colIndex, int direction) {
         if (colIndex < 0 || colIndex >= rotatingColumns.size()) {
             throw new IndexOutOfBoundsException("Invalid column index: " + colIndex);
         }
+        MazeEvents.Rotation event = new MazeEvents.Rotation();
+        event.begin();
         
-        CircularLinkedList<MazeTile> col = rotatingColumns.get(colIndex);
-        col.rotateClockwise();  // Rotate the circular linked list
+        // Only the column offset changes, lookups resolve through it
+        int x = rotatingColumns.get(colIndex);
+        if (direction > 0) {
+            grid.shiftColumn(x);
+        } else {
+            grid.shiftColumnBack(x);
+        }
+        if (connectivity != null) {
+            connectivity.columnShifted(x);
+        }
+        if (distanceField != null) {
+            distanceField.columnShifted(x);
+        }
+        commitRotation(event, false, x, direction);
+    }
+    
+    private static void commitRotation(MazeEvents.Rotation event, boolean row, int line, int direction) {
+        if (event.shouldCommit()) {
+            event.row = row;
+            event.line = line;
+            event.direction = direction;
+            event.commit();
+        }
+    }
+    
+    //rotate the corridors of one turn: the ones due in scheduled mode, else a random one
+    public String rotateCorridors() {
+        if (rotationWheel == null) {
+            return rotateRandomCorridor();
+        }
         
-        // Update the grid with the rotated column
-        List<MazeTile> rotatedTiles = col.getAllElements();
-        for (int y = 0; y < height; y++) {
-            MazeTile tile = rotatedTiles.get(y);
-            tile.setX(rotatingColumnIndex);
-            tile.setY(y);
-            grid[y][rotatingColumnIndex] = tile;
+        // only the corridors due this turn are visited
+        lastRotationCount = rotationWheel.advance();
+        if (lastRotationCount == 0) {
+            return "No corridor rotated";
         }
+        StringBuilder result = new StringBuilder("Rotated ");
+        int rows = rotatingRows.size();
+        for (int i = 0; i < lastRotationCount; i++) {
+            int corridor = rotationWheel.getDue(i);
+            int direction = corridorDirection[corridor];
+            if (i > 0) {
+                result.append(", ");
+            }
+            if (corridor < rows) {
+                rotateRow(corridor, direction);
+                result.append("row ").append(corridor);
+            } else {
+                rotateColumn(corridor - rows, direction);
+                result.append("column ").append(corridor - rows);
+            }
+            result.append(" by ").append(direction);
+        }
+        return result.toString();
     }
     
     //rotate a random corridor ( row or column)
     public String rotateRandomCorridor() {
-        boolean rotateRowOrColumn = random.nextBoolean(); //true for row, false for column
-        String result;
+        // a row or a column when the maze has both, then one of them when there are several
+        boolean rotateRowOrColumn; //true for row, false for column
+        if (rotatingRows.isEmpty() || rotatingColumns.isEmpty()) {
+            rotateRowOrColumn = !rotatingRows.isEmpty();
+        } else {
+            rotateRowOrColumn = rotationRandom.nextBoolean();
+        }
+        int count = rotateRowOrColumn ? rotatingRows.size() : rotatingColumns.size();
+        int index = count == 1 ? 0 : rotationRandom.nextInt(count);
         
+        String result;
         if (rotateRowOrColumn) {
-            int rowIndex = 0; // We only have one rotating row
-            rotateRow(rowIndex);
-            result = "Rotated row " + rowIndex;
+            rotateRow(index);
+            result = "Rotated row " + index;
         } else {
-            int colIndex = 0; // We only have one rotating column
-            rotateColumn(colIndex);
-            result = "Rotated column " + colIndex;
+            rotateColumn(index);
+            result = "Rotated column " + index;
         }
         
+        lastRotationRow = rotateRowOrColumn;
+        lastRotationIndex = index;
         return result;
     }
     
+    //true when rotations follow per-corridor periods instead of one random corridor per turn
+    public boolean isRotationScheduled() {
+        return rotationWheel != null;
+    }
+    
+    //true when the last random rotation turned a row, false for a column
+    public boolean lastRotationWasRow() {
+        return lastRotationRow;
+    }
+    
+    //index among the rotating rows or columns of the last random rotation
+    public int getLastRotationIndex() {
+        return lastRotationIndex;
+    }
+    
+    //corridors the last scheduled turn rotated
+    public int getLastRotationCount() {
+        return lastRotationCount;
+    }
+    
     //check if move is valid
-    public boolean isValidMove(int fromX, int fromY, String direction) {
-        int toX = fromX;
-        int toY = fromY;
-        
-        switch (direction) {
-            case "UP":
-                toY--;
-                break;
-            case "DOWN":
-                toY++;
-                break;
-            case "LEFT":
-                toX--;
-                break;
-            case "RIGHT":
-                toX++;
-                break;
-            default:
-                return false;
-        }
+    public boolean isValidMove(int fromX, int fromY, Direction direction) {
+        int toX = fromX + direction.getDx();
+        int toY = fromY + direction.getDy();
         
         // Check if the new position is within bounds
         if (toX < 0 || toX >= width || toY < 0 || toY >= height) {
@@ -348,48 +524,148 @@ public class MazeManager {
         }
         
         // Check if the new position is traversable
-        return grid[toY][toX].isTraversable();
+        return grid.isTraversable(toX, toY);
+    }
+    
+    //create the reachability index now, so threads that only read the maze never race to create it
+    public void ensureConnectivityIndex() {
+        if (connectivity == null) {
+            connectivity = new ConnectivityIndex(grid);
+        }
+    }
+    
+    //create the shared distance field now, so threads that only read the maze never race to create it
+    public void ensureDistanceField() {
+        if (distanceField == null) {
+            distanceField = new DistanceField(grid, width - 1, height - 1);
+        }
+    }
+    
+    //steps from the cell to the goal along the shared distance field, -1 when the goal cannot be reached
+    public int getDistanceToGoal(int x, int y) {
+        ensureDistanceField();
+        int distance = distanceField.getDistance(x, y);
+        return distance == DistanceField.UNREACHABLE ? -1 : distance;
+    }
+    
+    //direction of the neighbor closest to the goal on the shared distance field,
+    //null when no neighbor is closer than the cell itself
+    public Direction nextDirectionDownhill(int x, int y) {
+        ensureDistanceField();
+        int best = distanceField.getDistance(x, y);
+        Direction choice = null;
+        for (Direction direction : DIRECTIONS) {
+            int nextX = x + direction.getDx();
+            int nextY = y + direction.getDy();
+            if (nextX < 0 || nextX >= width || nextY < 0 || nextY >= height) {
+                continue;
+            }
+            int distance = distanceField.getDistance(nextX, nextY);
+            if (distance < best) {
+                best = distance;
+                choice = direction;
+            }
+        }
+        return choice;
+    }
+    
+    //a search for this maze, one per thread when several threads plan at once
+    public AStarPlanner newPlanner() {
+        return new AStarPlanner(grid);
+    }
+    
+    //check if the goal can still be reached from the given cell, near constant cost once the index exists
+    public boolean isGoalReachableFrom(int x, int y) {
+        ensureConnectivityIndex();
+        int goalX = width - 1;
+        int goalY = height - 1;
+        if (connectivity.isConnected(x, y, goalX, goalY)) {
+            return true;
+        }
+        
+        // an agent on a wall that rotated under it can still step onto a neighbor
+        if (grid.isTraversable(x, y)) {
+            return false;
+        }
+        return (x > 0 && connectivity.isConnected(x - 1, y, goalX, goalY))
+            || (x < width - 1 && connectivity.isConnected(x + 1, y, goalX, goalY))
+            || (y > 0 && connectivity.isConnected(x, y - 1, goalX, goalY))
+            || (y < height - 1 && connectivity.isConnected(x, y + 1, goalX, goalY));
+    }
+    
+    //direction of the first step on a shortest path to the goal, null when the goal cannot be reached
+    public Direction nextDirectionToGoal(int x, int y) {
+        if (planner == null) {
+            planner = newPlanner();
+        }
+        return nextDirectionToGoal(x, y, planner);
+    }
+    
+    //same with the caller's planner, safe from several threads while the maze does not change
+    //once ensureConnectivityIndex was called
+    public Direction nextDirectionToGoal(int x, int y, AStarPlanner planner) {
+        // skip the search when it could only fail after exploring the whole region
+        if (!isGoalReachableFrom(x, y)) {
+            return null;
+        }
+        int next = planner.nextStep(x, y, width - 1, height - 1);
+        if (next < 0) {
+            return null;
+        }
+        int delta = next - grid.index(x, y);
+        for (Direction direction : DIRECTIONS) {
+            if (directionDeltas[direction.ordinal()] == delta) {
+                return direction;
+            }
+        }
+        return null;
     }
     
-    //get the tile at given coordinates
+    //get the tile at given coordinates, a view over the packed grid
     public MazeTile getTile(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
             throw new IndexOutOfBoundsException("Invalid coordinates: (" + x + "," + y + ")");
         }
-        return grid[y][x];
+        return new MazeTile(grid, x, y);
     }
     
     //update agent location on the grid
     public void updateAgentLocation(Agent agent, int oldX, int oldY) {
-        // Remove agent from old position
-        if (oldX >= 0 && oldX < width && oldY >= 0 && oldY < height) {
-            grid[oldY][oldX].setHasAgent(false);
-        }
+        // The occupancy index remembers where the agent was, so other agents
+        // on the old tile stay marked and (-1, -1) still clears the old tile
+        OccupancyIndex occupancy = grid.getOccupancy();
         
         // Add agent to new position
         int newX = agent.getCurrentX();
         int newY = agent.getCurrentY();
         
         if (newX >= 0 && newX < width && newY >= 0 && newY < height) {
-            grid[newY][newX].setHasAgent(true);
+            occupancy.place(agent.getId(), grid.index(newX, newY));
             
             // Check if the agent reached the goal
-            if (grid[newY][newX].getType() == 'G') {
+            if (grid.getType(newX, newY) == 'G') {
                 agent.setHasReachedGoal(true);
             }
             
             // Check if the agent got a power-up
-            if (grid[newY][newX].getType() == 'P') {
+            if (grid.getType(newX, newY) == 'P') {
                 agent.setHasPowerUp(true);
-                grid[newY][newX].setType('E'); // Remove the power-up from the maze
+                grid.setType(newX, newY, 'E'); // Remove the power-up from the maze
             }
+        } else {
+            occupancy.remove(agent.getId());
         }
     }
     
     //adding agent to the maze
     public void addAgent(Agent agent) {
         agents.add(agent);
-        grid[agent.getCurrentY()][agent.getCurrentX()].setHasAgent(true);
+        grid.getOccupancy().place(agent.getId(), grid.index(agent.getCurrentX(), agent.getCurrentY()));
+    }
+    
+    //number of agents standing on the given cell
+    public int getAgentCount(int x, int y) {
+        return grid.getOccupancy().countAt(grid.index(x, y));
     }
     
     //get agents to maze
@@ -397,11 +673,359 @@ public class MazeManager {
         return agents;
     }
     
+    //get the seed the maze was built from
+    public long getSeed() {
+        return seed;
+    }
+    
+    //restart the random corridor rotations as a maze built from this seed starts them,
+    //so every run on a loaded maze rotates from its own seed
+    public void seedRotations(long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        root.split();
+        rotationRandom = root.split();
+    }
+    
+    //write the maze to a binary file: magic, version, width, height, seed, rotating rows and columns,
+    //the rotation period followed in scheduled mode by the period, direction and turns until due
+    //of every corridor, row and column shifts, then the packed cells. agents are not saved
+    public void saveMaze(String filename) throws IOException {
+        int corridors = rotatingRows.size() + rotatingColumns.size();
+        long headerSize = 4L * (9 + corridors + height + width) + (rotationWheel != null ? 12L * corridors : 0);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize + grid.packedSize());
+            file.putInt(FILE_MAGIC);
+            file.putInt(FILE_VERSION);
+            file.putInt(width);
+            file.putInt(height);
+            file.putLong(seed);
+            file.putInt(rotatingRows.size());
+            for (int row : rotatingRows) {
+                file.putInt(row);
+            }
+            file.putInt(rotatingColumns.size());
+            for (int column : rotatingColumns) {
+                file.putInt(column);
+            }
+            file.putInt(rotationWheel != null ? rotationPeriod : 0);
+            if (rotationWheel != null) {
+                int[] turnsUntilDue = rotationWheel.getTurnsUntilDue();
+                for (int i = 0; i < corridors; i++) {
+                    file.putInt(rotationWheel.getPeriod(i));
+                    file.putInt(corridorDirection[i]);
+                    file.putInt(turnsUntilDue[i]);
+                }
+            }
+            for (int y = 0; y < height; y++) {
+                file.putInt(grid.getRowOffset(y));
+            }
+            for (int x = 0; x < width; x++) {
+                file.putInt(grid.getColumnOffset(x));
+            }
+            grid.writePackedCells(file);
+            file.force();
+        }
+    }
+    
+    //load a maze written by saveMaze. the file is mapped privately, so large mazes open without
+    //reading the cells and changes made while playing never reach the file
+    public static MazeManager loadMaze(String filename) throws IOException {
+        MappedByteBuffer file;
+        // a private mapping copies only the pages that change but needs a channel opened for writing,
+        // the file itself is never written. without write access the file is mapped read only
+        // and the grid copies its cells the first time one changes
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            file = channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size());
+        } catch (FileSystemException e) {
+            try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+                file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try {
+            if (file.getInt() != FILE_MAGIC) {
+                throw new IOException("Not a maze file: " + filename);
+            }
+            int version = file.getInt();
+            if (version < 1 || version > FILE_VERSION) {
+                throw new IOException("Unsupported maze file version " + version + ": " + filename);
+            }
+            int width = file.getInt();
+            int height = file.getInt();
+            long seed = file.getLong();
+            if (width < 3 || height < 3 || (long) width * height > MazeGrid.MAX_CELLS) {
+                throw new IOException("Invalid maze size " + width + "x" + height + ": " + filename);
+            }
+            int[] rows = readLines(file, height, filename);
+            int[] columns = readLines(file, width, filename);
+            int period = version >= 2 ? file.getInt() : 0;
+            if (period < 0 || period > MAX_ROTATION_PERIOD) {
+                throw new IOException("Invalid rotation period " + period + ": " + filename);
+            }
+            int corridors = rows.length + columns.length;
+            int[] periods = new int[period > 0 ? corridors : 0];
+            int[] directions = new int[periods.length];
+            int[] turnsUntilDue = new int[periods.length];
+            for (int i = 0; i < periods.length; i++) {
+                periods[i] = file.getInt();
+                if (periods[i] > period) {
+                    throw new IOException("Invalid rotation period " + periods[i] + ": " + filename);
+                }
+                directions[i] = file.getInt() > 0 ? 1 : -1;
+                turnsUntilDue[i] = file.getInt();
+            }
+            int[] rowOffsets = new int[height];
+            for (int y = 0; y < height; y++) {
+                rowOffsets[y] = file.getInt();
+            }
+            int[] columnOffsets = new int[width];
+            for (int x = 0; x < width; x++) {
+                columnOffsets[x] = file.getInt();
+            }
+            
+            MazeGrid grid = new MazeGrid(width, height, file);
+            if (version < 3) {
+                grid = legacyLayout(grid, rowOffsets, columnOffsets);
+            }
+            MazeManager maze = new MazeManager(grid, seed);
+            maze.restoreRotatingCorridors(rows, columns);
+            if (version >= 3) {
+                maze.restoreOffsets(rowOffsets, columnOffsets);
+            }
+            maze.rotationPeriod = period;
+            if (period > 0) {
+                maze.corridorDirection = directions;
+                maze.rotationWheel = new RotationWheel(periods, turnsUntilDue);
+            }
+            return maze;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated maze file: " + filename);
+        }
+    }
+    
+    // files before version 3 applied every row shift before every column shift,
+    // their cells are copied to where they show so the grid starts unshifted
+    private static MazeGrid legacyLayout(MazeGrid stored, int[] rowOffsets, int[] columnOffsets) {
+        int width = stored.getWidth();
+        int height = stored.getHeight();
+        boolean shifted = false;
+        for (int offset : rowOffsets) {
+            shifted |= offset != 0;
+        }
+        for (int offset : columnOffsets) {
+            shifted |= offset != 0;
+        }
+        if (!shifted) {
+            return stored;
+        }
+        MazeGrid grid = new MazeGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int px = Math.floorMod(x + rowOffsets[y], width);
+                int py = Math.floorMod(y + columnOffsets[px], height);
+                grid.setType(x, y, stored.getType(px, py));
+            }
+        }
+        return grid;
+    }
+    
+    // row and column shifts of a saved or logged maze, after its rotating corridors
+    private void restoreOffsets(int[] rowOffsets, int[] columnOffsets) {
+        for (int y = 0; y < height; y++) {
+            if (rowRotates[y]) {
+                grid.setRowOffset(y, rowOffsets[y]);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            grid.setColumnOffset(x, columnOffsets[x]);
+        }
+    }
+    
+    // rotating corridors of a saved or logged maze
+    private void restoreRotatingCorridors(int[] rows, int[] columns) {
+        for (int row : rows) {
+            addRotatingRow(row);
+        }
+        for (int column : columns) {
+            addRotatingColumn(column);
+        }
+        rotatingRowCount = rows.length;
+        rotatingColumnCount = columns.length;
+    }
+    
+    // count followed by that many line indices, each from 1 to limit - 2
+    private static int[] readLines(ByteBuffer file, int limit, String filename) throws IOException {
+        int count = file.getInt();
+        if (count < 0 || count > limit - 2) {
+            throw new IOException("Invalid rotating corridor count " + count + ": " + filename);
+        }
+        int[] lines = new int[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = file.getInt();
+            // the first and last lines hold the start and the goal and never rotate
+            if (lines[i] < 1 || lines[i] > limit - 2) {
+                throw new IOException("Invalid rotating corridor " + lines[i] + ": " + filename);
+            }
+        }
+        return lines;
+    }
+    
+    //append the full state for a turn log keyframe: size, rotating corridors, row and column shifts,
+    //agents on the grid and the cell types, one line of type characters per row
+    public void appendKeyframe(StringBuilder sb) {
+        sb.append("Size: ").append(width).append(" ").append(height).append("\n");
+        appendLine(sb, "Rotating rows:", rotatingRows);
+        appendLine(sb, "Rotating columns:", rotatingColumns);
+        sb.append("Row offsets:");
+        for (int y = 0; y < height; y++) {
+            sb.append(" ").append(grid.getRowOffset(y));
+        }
+        sb.append("\nColumn offsets:");
+        for (int x = 0; x < width; x++) {
+            sb.append(" ").append(grid.getColumnOffset(x));
+        }
+        
+        // id x y of every agent, the earliest arrival on a cell first so reading them back
+        // in order restores which agent is shown there
+        sb.append("\nAgents:");
+        OccupancyIndex occupancy = grid.getOccupancy();
+        for (Agent agent : agents) {
+            int cell = occupancy.cellOf(agent.getId());
+            if (cell < 0 || occupancy.agentAt(cell) != agent.getId()) {
+                continue;
+            }
+            int id = agent.getId();
+            while (occupancy.arrivedBefore(id) >= 0) {
+                id = occupancy.arrivedBefore(id);
+            }
+            for (; id >= 0; id = occupancy.arrivedAfter(id)) {
+                sb.append(" ").append(id).append(" ").append(cell % width).append(" ").append(cell / width);
+            }
+        }
+        sb.append("\n");
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                sb.append(grid.getType(x, y));
+            }
+            sb.append("\n");
+        }
+    }
+    
+    private static void appendLine(StringBuilder sb, String label, List<Integer> lines) {
+        sb.append(label);
+        for (int line : lines) {
+            sb.append(" ").append(line);
+        }
+        sb.append("\n");
+    }
+    
+    //rebuild a maze and its agents from the lines of a keyframe written by appendKeyframe
+    public static MazeManager readKeyframe(BufferedReader reader) throws IOException {
+        try {
+            int[] size = readValues(reader, "Size:");
+            if (size.length != 2 || size[0] < 3 || size[1] < 3 || (long) size[0] * size[1] > MazeGrid.MAX_CELLS) {
+                throw new IOException("Invalid keyframe size");
+            }
+            int width = size[0];
+            int height = size[1];
+            int[] rows = readValues(reader, "Rotating rows:");
+            int[] columns = readValues(reader, "Rotating columns:");
+            int[] rowOffsets = readValues(reader, "Row offsets:");
+            int[] columnOffsets = readValues(reader, "Column offsets:");
+            int[] placed = readValues(reader, "Agents:");
+            
+            MazeManager maze = new MazeManager(new MazeGrid(width, height), 0);
+            maze.restoreRotatingCorridors(rows, columns);
+            maze.restoreOffsets(rowOffsets, columnOffsets);
+            
+            // cells are logical, the shifts above map them to the same storage as in the logged run
+            for (int y = 0; y < height; y++) {
+                String line = reader.readLine();
+                if (line == null || line.length() != width) {
+                    throw new IOException("Invalid keyframe row " + y);
+                }
+                for (int x = 0; x < width; x++) {
+                    maze.grid.setType(x, y, line.charAt(x));
+                }
+            }
+            
+            // agents are listed per cell in arrival order, the list itself is kept in id order,
+            // ids run from 0 to the number of agents as GameController numbers them
+            if (placed.length % 3 != 0) {
+                throw new IOException("Invalid keyframe agents");
+            }
+            Agent[] byId = new Agent[placed.length / 3];
+            for (int i = 0; i < placed.length; i += 3) {
+                int id = placed[i];
+                int x = placed[i + 1];
+                int y = placed[i + 2];
+                if (id < 0 || id >= byId.length || byId[id] != null) {
+                    throw new IOException("Invalid keyframe agent id " + id + " of " + byId.length + " agents");
+                }
+                if (x < 0 || x >= width || y < 0 || y >= height) {
+                    throw new IOException("Invalid keyframe agent position " + x + " " + y);
+                }
+                byId[id] = new Agent(id, x, y, width, new SplittableRandom(0));
+                maze.grid.getOccupancy().place(id, maze.grid.index(x, y));
+            }
+            // as many distinct ids in range as agents, so none is missing
+            for (Agent agent : byId) {
+                maze.agents.add(agent);
+            }
+            return maze;
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid keyframe: " + e.getMessage());
+        }
+    }
+    
+    // the numbers after the label of the next line
+    private static int[] readValues(BufferedReader reader, String label) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(label)) {
+            throw new IOException("Keyframe line missing: " + label);
+        }
+        String values = line.substring(label.length()).trim();
+        if (values.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = values.split(" ");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i]);
+        }
+        return numbers;
+    }
+    
+    //move a rebuilt agent, it becomes the latest arrival on the cell and the tile is left as it is
+    public void placeAgent(int agentId, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height || agentId < 0 || agentId >= agents.size()) {
+            throw new IndexOutOfBoundsException("Invalid agent position: " + agentId + " (" + x + "," + y + ")");
+        }
+        agents.set(agentId, new Agent(agentId, x, y, width, new SplittableRandom(0)));
+        OccupancyIndex occupancy = grid.getOccupancy();
+        occupancy.remove(agentId);
+        occupancy.place(agentId, grid.index(x, y));
+    }
+    
     //get maze dimensions of array
     public int[] getDimensions() {
         return new int[] { width, height };
     }
     
+    //rotating rows of the maze, a loaded maze has the ones of its file
+    public int getRotatingRowCount() {
+        return rotatingRows.size();
+    }
+    
+    public int getRotatingColumnCount() {
+        return rotatingColumns.size();
+    }
+    
+    //longest rotation period, 0 rotates one random corridor per turn
+    public int getRotationPeriod() {
+        return rotationPeriod;
+    }
+    
     //prints the maze snapshot
     public String printMazeSnapshot() {
         StringBuilder sb = new StringBuilder();
@@ -409,7 +1033,7 @@ public class MazeManager {
         // Add top border with column markers for rotating column
         sb.append("+");
         for (int x = 0; x < width; x++) {
-            if (x == rotatingColumnIndex) {
+            if (columnRotates[x]) {
                 sb.append("**");
             } else {
                 sb.append("--");
@@ -420,30 +1044,20 @@ public class MazeManager {
         // Add maze content
         for (int y = 0; y < height; y++) {
             // Add row marker for rotating row
-            if (y == rotatingRowIndex) {
+            if (rowRotates[y]) {
                 sb.append("*");
             } else {
                 sb.append("|");
             }
             
             for (int x = 0; x < width; x++) {
-                MazeTile tile = grid[y][x];
-                
-                // Check if an agent is on this tile
-                boolean hasAgent = false;
-                int agentId = -1;
-                for (Agent agent : agents) {
-                    if (agent.getCurrentX() == x && agent.getCurrentY() == y) {
-                        hasAgent = true;
-                        agentId = agent.getId();
-                        break;
-                    }
-                }
+                // Check if an agent is on this tile, the latest arrival is shown
+                int agentId = grid.getOccupancy().agentAt(grid.index(x, y));
                 
-                if (hasAgent) {
+                if (agentId >= 0) {
                     sb.append(agentId).append(" ");
                 } else {
-                    switch (tile.getType()) {
+                    switch (grid.getType(x, y)) {
                         case 'W':
                             sb.append("# ");
                             break;
@@ -463,7 +1077,7 @@ public class MazeManager {
             }
             
             // Add right border with row marker for rotating row
-            if (y == rotatingRowIndex) {
+            if (rowRotates[y]) {
                 sb.append("*\n");
             } else {
                 sb.append("|\n");
@@ -473,7 +1087,7 @@ public class MazeManager {
         // Add bottom border with column markers for rotating column
         sb.append("+");
         for (int x = 0; x < width; x++) {
-            if (x == rotatingColumnIndex) {
+            if (columnRotates[x]) {
                 sb.append("**");
             } else {
                 sb.append("--");
@@ -484,38 +1098,9 @@ public class MazeManager {
         return sb.toString();
     }
     
-    private boolean isGoalAccessible() {
-        // Use BFS to check if goal is accessible from start
-        boolean[][] visited = new boolean[height][width];
-        Queue<int[]> queue = new Queue<>();
-        queue.enqueue(new int[]{0, 0});
-        visited[0][0] = true;
-        
-        int[][] directions = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
-        
-        while (!queue.isEmpty()) {
-            int[] current = (int[])queue.dequeue();
-            int x = current[0];
-            int y = current[1];
-            
-            if (x == width - 1 && y == height - 1) {
-                return true;
-            }
-            
-            for (int[] dir : directions) {
-                int newX = x + dir[0];
-                int newY = y + dir[1];
-                
-                if (newX >= 0 && newX < width && newY >= 0 && newY < height 
-                    && !visited[newY][newX] 
-                    && grid[newY][newX].isTraversable()) {
-                    visited[newY][newX] = true;
-                    queue.enqueue(new int[]{newX, newY});
-                }
-            }
-        }
-        
-        return false;
+    boolean isGoalAccessible() {
+        // flood the traversable bitboard from start to goal, a row at a time
+        return grid.isReachable(0, 0, width - 1, height - 1);
     }
     
     private void clearPathToGoal() {
@@ -524,14 +1109,14 @@ public class MazeManager {
         while (x < width - 1 || y < height - 1) {
             if (x < width - 1) {
                 x++;
-                grid[y][x].setType('E');
+                grid.setType(x, y, 'E');
             }
             if (y < height - 1) {
                 y++;
-                grid[y][x].setType('E');
+                grid.setType(x, y, 'E');
             }
         }
         // Ensure goal is set
-        grid[height-1][width-1].setType('G');
+        grid.setType(width-1, height-1, 'G');
     }
 }
\ No newline at end of file
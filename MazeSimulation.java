@@ -1,6 +1,14 @@
+    import java.io.FileWriter;
+    import java.io.IOException;
+    import java.io.PrintWriter;
     import java.util.Scanner;
+    import java.util.SplittableRandom;
     //main class for the game
     public class MazeSimulation {
+        public static final int MAX_SIDE = 100000;
+        public static final int MAX_AGENTS = 100000;
+        public static final int MAX_TURNS = 1000000000;
+        public static final int MAX_RUNS = 10000;
         
         //main method to run the game
         public static void main(String[] args) {
@@ -14,31 +22,116 @@
             // get parameters
             System.out.println("\nEnter simulation parameters:");
             
-            // get width and height
-            System.out.print("Maze width (6-20): ");
-            int mazeWidth = getIntInput(scanner, 6, 20);
-            
-            System.out.print("Maze height (6-20): ");
-            int mazeHeight = getIntInput(scanner, 6, 20);
+            // a saved maze replaces the size and density questions
+            System.out.print("Maze file to load (empty to generate a new maze): ");
+            MazeManager loadedMaze = null;
+            String mazeFile = scanner.nextLine().trim();
+            while (!mazeFile.isEmpty() && loadedMaze == null) {
+                try {
+                    loadedMaze = MazeManager.loadMaze(mazeFile);
+                } catch (IOException e) {
+                    System.err.println("Error reading maze file: " + e.getMessage());
+                    System.out.print("Maze file to load (empty to generate a new maze): ");
+                    mazeFile = scanner.nextLine().trim();
+                }
+            }
+            if (loadedMaze == null) {
+                mazeFile = null;
+            }
+            int mazeWidth;
+            int mazeHeight;
+            if (loadedMaze != null) {
+                mazeWidth = loadedMaze.getDimensions()[0];
+                mazeHeight = loadedMaze.getDimensions()[1];
+                System.out.println("Loaded a " + mazeWidth + "x" + mazeHeight + " maze.");
+            } else {
+                // get width and height
+                System.out.print("Maze width (6-" + MAX_SIDE + "): ");
+                mazeWidth = getIntInput(scanner, 6, MAX_SIDE);
+                
+                // the cell count must fit the packed grid
+                int maxHeight = (int) Math.min(MAX_SIDE, MazeGrid.MAX_CELLS / mazeWidth);
+                System.out.print("Maze height (6-" + maxHeight + "): ");
+                mazeHeight = getIntInput(scanner, 6, maxHeight);
+            }
+            boolean largeScale = GameController.isLargeScale(mazeWidth, mazeHeight);
             
             // get number of agents
-            System.out.print("Number of agents (1-10): ");
-            int numAgents = getIntInput(scanner, 1, 10);
+            System.out.print("Number of agents (1-" + MAX_AGENTS + "): ");
+            int numAgents = getIntInput(scanner, 1, MAX_AGENTS);
             
             // get map entity densities
-            System.out.print("Wall density (0.0-0.5): ");
-            double wallDensity = getDoubleInput(scanner, 0.0, 0.5);
+            double wallDensity = 0;
+            double trapDensity = 0;
+            double powerUpDensity = 0;
+            int rotatingRows = 1;
+            int rotatingColumns = 1;
+            int rotationPeriod = 0;
+            String saveFilename = "";
+            if (loadedMaze == null) {
+                System.out.print("Wall density (0.0-0.5): ");
+                wallDensity = getDoubleInput(scanner, 0.0, 0.5);
+                
+                System.out.print("Trap density (0.0-0.2): ");
+                trapDensity = getDoubleInput(scanner, 0.0, 0.2);
+                
+                System.out.print("Power-up density (0.0-0.1): ");
+                powerUpDensity = getDoubleInput(scanner, 0.0, 0.1);
+                
+                // several corridors can rotate, each on its own period
+                System.out.print("Rotating rows (0-" + (mazeHeight - 2) + "): ");
+                rotatingRows = getIntInput(scanner, 0, mazeHeight - 2);
+                
+                System.out.print("Rotating columns (" + (rotatingRows == 0 ? 1 : 0) + "-" + (mazeWidth - 2) + "): ");
+                rotatingColumns = getIntInput(scanner, rotatingRows == 0 ? 1 : 0, mazeWidth - 2);
+                
+                System.out.print("Longest rotation period in turns (0 = one random corridor per turn, up to "
+                                 + MazeManager.MAX_ROTATION_PERIOD + "): ");
+                rotationPeriod = getIntInput(scanner, 0, MazeManager.MAX_ROTATION_PERIOD);
+                
+                // a saved maze is shared by every run instead of generating one per run
+                System.out.print("Save the maze to file (empty to skip): ");
+                saveFilename = scanner.nextLine().trim();
+            } else {
+                // the loaded maze has its own rotating corridors, its densities are not in the file
+                wallDensity = Double.NaN;
+                trapDensity = Double.NaN;
+                powerUpDensity = Double.NaN;
+                rotatingRows = loadedMaze.getRotatingRowCount();
+                rotatingColumns = loadedMaze.getRotatingColumnCount();
+                rotationPeriod = loadedMaze.getRotationPeriod();
+            }
             
-            System.out.print("Trap density (0.0-0.2): ");
-            double trapDensity = getDoubleInput(scanner, 0.0, 0.2);
             
-            System.out.print("Power-up density (0.0-0.1): ");
-            double powerUpDensity = getDoubleInput(scanner, 0.0, 0.1);
+            // get max turns
+            System.out.print("Maximum number of turns (50-" + MAX_TURNS + "): ");
+            int maxTurns = getIntInput(scanner, 50, MAX_TURNS);
             
+            // get agent strategy
+            System.out.print("Agent strategy (1 = random, 2 = A* to the goal, 3 = shared distance field): ");
+            AgentStrategy strategy = AgentStrategy.values()[getIntInput(scanner, 1, 3) - 1];
             
-            // get max turns
-            System.out.print("Maximum number of turns (50-500): ");
-            int maxTurns = getIntInput(scanner, 50, 500);
+            // simultaneous rounds let every agent decide at once
+            System.out.print("Simultaneous moves, all agents decide each round in parallel (y/n): ");
+            boolean simultaneous = getYesNoInput(scanner);
+            
+            // headless mode skips per-turn output, large mazes always run headless
+            boolean headless = true;
+            if (largeScale) {
+                System.out.println("Large maze: running headless, agents keep their last "
+                                   + GameController.LARGE_MAZE_HISTORY + " positions.");
+            } else {
+                System.out.print("Headless mode, final statistics only (y/n): ");
+                headless = getYesNoInput(scanner);
+            }
+            
+            // get seed, empty for a random one
+            System.out.print("Random seed (empty for random): ");
+            long seed = getSeedInput(scanner);
+            
+            // get number of independent runs
+            System.out.print("Number of runs (1-" + MAX_RUNS + "): ");
+            int runs = getIntInput(scanner, 1, MAX_RUNS);
             
             // get output txt log name
             System.out.print("Output log filename: ");
@@ -47,14 +140,57 @@
                 logFilename = "maze_simulation_log.txt";
             }
             
+            // a single run can also be recorded for the replayer
+            String replayFilename = "";
+            if (runs == 1) {
+                System.out.print("Replay file to record (empty to skip): ");
+                replayFilename = scanner.nextLine();
+            }
+            
+            // generate the maze this seed gives and save it
+            if (!saveFilename.isEmpty()) {
+                loadedMaze = GameController.newMaze(mazeWidth, mazeHeight, wallDensity, trapDensity, powerUpDensity, seed,
+                                                    rotatingRows, rotatingColumns, rotationPeriod);
+                try {
+                    loadedMaze.saveMaze(saveFilename);
+                    mazeFile = saveFilename;
+                    System.out.println("Maze saved to " + saveFilename);
+                } catch (IOException e) {
+                    System.err.println("Error writing maze file: " + e.getMessage());
+                    loadedMaze = null;
+                }
+            }
+            
+            SimulationConfig config = new SimulationConfig(mazeWidth, mazeHeight, numAgents,
+                                                           wallDensity, trapDensity, powerUpDensity,
+                                                           maxTurns, seed);
+            config.setStrategy(strategy);
+            config.setMazeFile(mazeFile);
+            config.setSimultaneous(simultaneous);
+            config.setRotatingCorridors(rotatingRows, rotatingColumns, rotationPeriod);
+            
+            // several runs go to the parallel batch runner
+            if (runs > 1) {
+                BatchReport report = new BatchRunner().run(config, runs);
+                System.out.println("\nConfiguration: " + config);
+                System.out.print(report.summary());
+                writeBatchReport(logFilename, config, report);
+                scanner.close();
+                return;
+            }
+            
             // initalize game controller
-            GameController controller = new GameController(maxTurns);
-            controller.initializeGame(mazeWidth, mazeHeight, numAgents, 
-                                    wallDensity, trapDensity, powerUpDensity
-                                    );
+            GameController controller = newGame(config, loadedMaze, headless);
+            
+            // stream turn logs to the log file while running
+            controller.openLogFile(logFilename);
+            if (!replayFilename.isEmpty()) {
+                controller.openReplayFile(replayFilename, config);
+            }
             
             // run the simulation
             controller.runSimulation();
+            controller.closeReplayFile();
             
             // results to log file
             controller.logGameSummaryToFile(logFilename);
@@ -62,6 +198,35 @@
             scanner.close();
         }
         
+        // a single game of the configuration on a loaded maze, or a generated one when null
+        public static GameController newGame(SimulationConfig config, MazeManager loadedMaze, boolean headless) {
+            GameController controller = new GameController(config.getMaxTurns());
+            controller.setHeadless(headless);
+            controller.setStrategy(config.getStrategy());
+            controller.setSimultaneous(config.isSimultaneous());
+            controller.setRotatingCorridors(config.getRotatingRows(), config.getRotatingColumns(),
+                                            config.getRotationPeriod());
+            if (loadedMaze != null) {
+                controller.initializeGame(loadedMaze, config.getNumAgents(), config.getSeed());
+            } else {
+                controller.initializeGame(config.getMazeWidth(), config.getMazeHeight(), config.getNumAgents(),
+                                          config.getWallDensity(), config.getTrapDensity(), config.getPowerUpDensity(),
+                                          config.getSeed());
+            }
+            return controller;
+        }
+        
+        // writes the batch report to the log file
+        public static void writeBatchReport(String filename, SimulationConfig config, BatchReport report) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+                writer.println("===== MAZE ESCAPE BATCH LOG =====");
+                writer.println("Configuration: " + config);
+                writer.print(report.summary());
+            } catch (IOException e) {
+                System.err.println("Error writing to log file: " + e.getMessage());
+            }
+        }
+        
         // get integer input within a range
         private static int getIntInput(Scanner scanner, int min, int max) {
             int value;
@@ -79,6 +244,34 @@
             }
         }
         
+        //get a seed, empty input picks a random one
+        private static long getSeedInput(Scanner scanner) {
+            while (true) {
+                String value = scanner.nextLine().trim();
+                if (value.isEmpty()) {
+                    return new SplittableRandom().nextLong();
+                }
+                try {
+                    return Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    System.out.print("Please enter a valid integer: ");
+                }
+            }
+        }
+        
+        //get yes or no input, empty means no
+        private static boolean getYesNoInput(Scanner scanner) {
+            while (true) {
+                String value = scanner.nextLine().trim().toLowerCase();
+                if (value.isEmpty() || value.equals("n") || value.equals("no")) {
+                    return false;
+                } else if (value.equals("y") || value.equals("yes")) {
+                    return true;
+                }
+                System.out.print("Please enter y or n: ");
+            }
+        }
+        
         //get double input within a range
         private static double getDoubleInput(Scanner scanner, double min, double max) {
             double value;
@@ -1,21 +1,19 @@
-//represents cells in the maze
+//represents cells in the maze, a view over the packed grid
 public class MazeTile {
+    private MazeGrid grid;
     private int x;
     private int y;
-    private char type;
-    private boolean hasAgent;
     
     // maze tile constructor
-    public MazeTile(int x, int y, char type) {
+    public MazeTile(MazeGrid grid, int x, int y) {
+        this.grid = grid;
         this.x = x;
         this.y = y;
-        this.type = type;
-        this.hasAgent = false;
     }
     
     // check if traversable
     public boolean isTraversable() {
-        return type != 'W'; // Only walls are not traversable
+        return grid.isTraversable(x, y); // Only walls are not traversable
     }
     
     //get x cordinate of tile
@@ -30,22 +28,22 @@ public class MazeTile {
     
     //get type of tile
     public char getType() {
-        return type;
+        return grid.getType(x, y);
     }
     
     // check if tile has agent
     public boolean hasAgent() {
-        return hasAgent;
+        return grid.hasAgent(x, y);
     }
     
-    // set agent presence 
-    public void setHasAgent(boolean hasAgent) {
-        this.hasAgent = hasAgent;
+    // number of agents standing on the tile
+    public int getAgentCount() {
+        return grid.getOccupancy().countAt(grid.index(x, y));
     }
     
     //sets the type of tile
     public void setType(char type) {
-        this.type = type;
+        grid.setType(x, y, type);
     }
     
     // set x cordinate of tile
@@ -61,10 +59,10 @@ public class MazeTile {
     // tile to string
     @Override
     public String toString() {
-        if (hasAgent) {
+        if (hasAgent()) {
             return "A";
         } else {
-            return String.valueOf(type);
+            return String.valueOf(getType());
         }
     }
     
@@ -73,6 +71,6 @@ public class MazeTile {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         MazeTile other = (MazeTile) obj;
-        return x == other.x && y == other.y && type == other.type;
+        return x == other.x && y == other.y && getType() == other.getType();
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+//per-phase latencies and throughput of a run, cheap enough to stay on in batch jobs
+//not thread safe, every run records into its own instance and reports merge them
+public class Metrics {
+    //timed parts of a run
+    public enum Phase {
+        GENERATION("Maze generation"),
+        ACTION("Agent action"),  // one sequential turn, or applying one action of a round
+        ROUND_DECISIONS("Round decisions"),  // all parallel decisions of a simultaneous round
+        ROTATION("Corridor rotation"),
+        SNAPSHOT("Maze snapshot"),
+        LOG("Turn log");
+        
+        private final String label;
+        
+        Phase(String label) {
+            this.label = label;
+        }
+        
+        public String getLabel() {
+            return label;
+        }
+    }
+    
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    
+    private LatencyHistogram[] phases;
+    private long turns;
+    private long playNanos;
+    private long allocatedBytes;  // on the playing thread, -1 when the JVM does not report it
+    private long wallNanos;  // elapsed time of runs played in parallel, 0 when only play time is known
+    
+    public Metrics() {
+        this.phases = new LatencyHistogram[Phase.values().length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+    
+    public void record(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+    
+    //add a stretch of play: turns played, wall time and bytes allocated meanwhile
+    public void recordPlay(long turns, long nanos, long allocatedBytes) {
+        this.turns += turns;
+        this.playNanos += nanos;
+        if (allocatedBytes < 0 || this.allocatedBytes < 0) {
+            this.allocatedBytes = -1;
+        } else {
+            this.allocatedBytes += allocatedBytes;
+        }
+    }
+    
+    public LatencyHistogram getPhase(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+    
+    public long getTurns() {
+        return turns;
+    }
+    
+    //runs played at once overlap their play time, their throughput is taken over the elapsed time
+    public void setWallNanos(long wallNanos) {
+        this.wallNanos = wallNanos;
+    }
+    
+    public double getTurnsPerSecond() {
+        long nanos = wallNanos > 0 ? wallNanos : playNanos;
+        return nanos == 0 ? 0 : turns / (nanos / 1e9);
+    }
+    
+    //bytes allocated per turn by the playing thread, -1 when unknown
+    public double getAllocatedBytesPerTurn() {
+        if (allocatedBytes < 0) {
+            return -1;
+        }
+        return turns == 0 ? 0 : (double) allocatedBytes / turns;
+    }
+    
+    //add everything the other instance recorded
+    public void merge(Metrics other) {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i].merge(other.phases[i]);
+        }
+        recordPlay(other.turns, other.playNanos, other.allocatedBytes);
+    }
+    
+    //bytes allocated so far by the current thread, -1 when the JVM does not report it
+    public static long threadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+    
+    //formats throughput, allocation and every phase that was recorded
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("===== METRICS =====\n");
+        if (wallNanos > 0) {
+            sb.append(String.format("Turns per second: %.1f (%d turns in %.3f s, %.3f s of play on all workers)\n",
+                                    getTurnsPerSecond(), turns, wallNanos / 1e9, playNanos / 1e9));
+        } else {
+            sb.append(String.format("Turns per second: %.1f (%d turns in %.3f s)\n",
+                                    getTurnsPerSecond(), turns, playNanos / 1e9));
+        }
+        double perTurn = getAllocatedBytesPerTurn();
+        sb.append(perTurn < 0 ? "Allocated bytes per turn: unknown\n"
+                              : String.format("Allocated bytes per turn: %.1f\n", perTurn));
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = phases[phase.ordinal()];
+            if (histogram.getCount() > 0) {
+                sb.append(phase.getLabel()).append(": ").append(histogram).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+//agent positions as packed cell indices (y * stride + x)
+//grows as needed, or with a limit keeps only the latest positions in a ring
+public class MoveHistory {
+    private static final int SHOWN_MOVES = 5; // last 5 moves in toString
+    
+    private int stride;
+    private int maxY;  // largest y whose cells still fit an int
+    private int limit;  // 0 for unbounded
+    private int[] cells;
+    private int start;  // slot of the oldest position
+    private int size;
+    
+    //constructor, stride must be larger than any x coordinate
+    public MoveHistory(int stride) {
+        if (stride < 1) {
+            throw new IllegalArgumentException("Stride must be positive: " + stride);
+        }
+        this.stride = stride;
+        this.maxY = (Integer.MAX_VALUE - (stride - 1)) / stride;
+        this.limit = 0;
+        this.cells = new int[16];
+        this.start = 0;
+        this.size = 0;
+    }
+    
+    //record a position, one that does not pack into an int is rejected instead of wrapping around
+    public void push(int x, int y) {
+        if (x < 0 || x >= stride || y < 0 || y > maxY) {
+            throw new IllegalArgumentException("Position (" + x + ", " + y + ") does not fit stride " + stride);
+        }
+        int cell = y * stride + x;
+        if (size == cells.length) {
+            if (limit > 0) {
+                // ring is full, drop the oldest position
+                cells[start] = cell;
+                start = (start + 1) % cells.length;
+                return;
+            }
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        cells[(start + size) % cells.length] = cell;
+        size++;
+    }
+    
+    //drop the latest position
+    public boolean pop() {
+        if (size == 0) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+    
+    //x of the latest position
+    public int peekX() {
+        return latest(0) % stride;
+    }
+    
+    //y of the latest position
+    public int peekY() {
+        return latest(0) / stride;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    //keep at most limit positions from now on, 0 removes the limit
+    public void setLimit(int limit) {
+        int keep = limit > 0 ? Math.min(size, limit) : size;
+        int[] resized = new int[limit > 0 ? limit : Math.max(16, size)];
+        for (int i = 0; i < keep; i++) {
+            resized[i] = cells[(start + size - keep + i) % cells.length];
+        }
+        this.cells = resized;
+        this.start = 0;
+        this.size = keep;
+        this.limit = limit;
+    }
+    
+    // i-th newest packed cell
+    private int latest(int i) {
+        if (i >= size) {
+            throw new IllegalStateException("No move recorded");
+        }
+        return cells[(start + size - 1 - i) % cells.length];
+    }
+    
+    // latest moves first, as "x,y"
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        int shown = Math.min(size, SHOWN_MOVES);
+        for (int i = 0; i < shown; i++) {
+            int cell = latest(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(cell % stride).append(",").append(cell / stride);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
\ No newline at end of file
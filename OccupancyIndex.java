@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+//tracks which agents stand on which cell, several agents can share a cell
+//only occupied cells take memory, so the index stays small on huge grids
+public class OccupancyIndex {
+    // open addressing table of occupied cells, linear probing
+    private int[] slotCell;  // cell + 1 of each slot, 0 when the slot is free
+    private int[] slotHead;  // agent id + 1 of the latest arrival on the slot's cell
+    private int occupiedCells;
+    private int[] agentCell;  // cell of each agent, -1 when not on the grid
+    private int[] nextAgent;  // next agent on the same cell, -1 at the end
+    private int[] previousAgent;  // previous agent on the same cell, -1 at the head
+
+    //constructor, empty
+    public OccupancyIndex() {
+        this.slotCell = new int[16];
+        this.slotHead = new int[16];
+        this.occupiedCells = 0;
+        this.agentCell = new int[0];
+        this.nextAgent = new int[0];
+        this.previousAgent = new int[0];
+    }
+
+    //place agent on a cell, leaving the cell it was on before
+    public void place(int agentId, int cell) {
+        ensureCapacity(agentId);
+        if (agentCell[agentId] == cell) {
+            return;
+        }
+        remove(agentId);
+
+        int head = agentAt(cell);
+        nextAgent[agentId] = head;
+        previousAgent[agentId] = -1;
+        if (head >= 0) {
+            previousAgent[head] = agentId;
+        }
+        setHead(cell, agentId);
+        agentCell[agentId] = cell;
+    }
+
+    //take agent off the grid
+    public void remove(int agentId) {
+        if (agentId >= agentCell.length || agentCell[agentId] < 0) {
+            return;
+        }
+        int cell = agentCell[agentId];
+        int next = nextAgent[agentId];
+        int previous = previousAgent[agentId];
+        if (previous >= 0) {
+            nextAgent[previous] = next;
+        } else {
+            setHead(cell, next);
+        }
+        if (next >= 0) {
+            previousAgent[next] = previous;
+        }
+        agentCell[agentId] = -1;
+    }
+
+    //id of the latest agent to arrive on the cell, -1 when empty
+    public int agentAt(int cell) {
+        int slot = slotOf(cell);
+        return slotCell[slot] == 0 ? -1 : slotHead[slot] - 1;
+    }
+
+    public boolean isOccupied(int cell) {
+        return slotCell[slotOf(cell)] != 0;
+    }
+
+    //number of agents on the cell
+    public int countAt(int cell) {
+        int count = 0;
+        for (int agent = agentAt(cell); agent >= 0; agent = nextAgent[agent]) {
+            count++;
+        }
+        return count;
+    }
+
+    //agent that arrived on the same cell just before this one, -1 for the first arrival
+    public int arrivedBefore(int agentId) {
+        return nextAgent[agentId];
+    }
+
+    //agent that arrived on the same cell just after this one, -1 for the latest arrival
+    public int arrivedAfter(int agentId) {
+        return previousAgent[agentId];
+    }
+
+    //cell of the agent, -1 when not on the grid
+    public int cellOf(int agentId) {
+        return agentId < agentCell.length ? agentCell[agentId] : -1;
+    }
+
+    //remove every agent
+    public void clear() {
+        Arrays.fill(slotCell, 0);
+        occupiedCells = 0;
+        Arrays.fill(agentCell, -1);
+    }
+
+    // slot holding the cell, or the free slot where it would go
+    private int slotOf(int cell) {
+        int mask = slotCell.length - 1;
+        int slot = hash(cell) & mask;
+        while (slotCell[slot] != 0 && slotCell[slot] != cell + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // make agent the head of the cell, -1 frees the cell
+    private void setHead(int cell, int agentId) {
+        int slot = slotOf(cell);
+        if (agentId < 0) {
+            if (slotCell[slot] != 0) {
+                free(slot);
+            }
+            return;
+        }
+        if (slotCell[slot] == 0) {
+            slotCell[slot] = cell + 1;
+            occupiedCells++;
+        }
+        slotHead[slot] = agentId + 1;
+        if (occupiedCells * 2 > slotCell.length) {
+            rehash(slotCell.length * 2);
+        }
+    }
+
+    // free a slot, moving later entries of the probe run back so lookups never stop early
+    private void free(int slot) {
+        int mask = slotCell.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; slotCell[next] != 0; next = (next + 1) & mask) {
+            int home = hash(slotCell[next] - 1) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slotCell[gap] = slotCell[next];
+                slotHead[gap] = slotHead[next];
+                gap = next;
+            }
+        }
+        slotCell[gap] = 0;
+        occupiedCells--;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldCells = slotCell;
+        int[] oldHeads = slotHead;
+        slotCell = new int[capacity];
+        slotHead = new int[capacity];
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != 0) {
+                int slot = slotOf(oldCells[i] - 1);
+                slotCell[slot] = oldCells[i];
+                slotHead[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    private void ensureCapacity(int agentId) {
+        if (agentId < agentCell.length) {
+            return;
+        }
+        int oldLength = agentCell.length;
+        int newLength = Math.max(agentId + 1, oldLength * 2);
+        agentCell = Arrays.copyOf(agentCell, newLength);
+        nextAgent = Arrays.copyOf(nextAgent, newLength);
+        previousAgent = Arrays.copyOf(previousAgent, newLength);
+        Arrays.fill(agentCell, oldLength, newLength, -1);
+    }
+}
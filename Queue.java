@@ -1,92 +1,102 @@
+import java.util.Arrays;
+import java.util.Collection;
+
+//first in first out queue on a growable ring buffer, no allocation per element
 public class Queue<Q> {
-    private Node<Q> front;
-    private Node<Q> rear;
+    private Object[] elements;
+    private int front;  // slot of the first element
     private int size;
     
-    
-    private static class Node<Q> {
-
-        Q value;
-        private Node<Q> next;
-      
-        public Node(Q value) {
-          this.value = value;
-          this.next = null;
-        }
-      
-        public void setNext(Node<Q> node) {
-          this.next = node;
-        }
-      
-        public Node<Q> getNext() {
-          
-           return this.next;
-        }
-  
-        public Q getValue() {
-          
-          
-           return this.value;
-        }
-      
-      }
-    
     public Queue() {
+        this(16);
+    }
     
-    front = null;
-    rear = null;
-    size = 0;
+    public Queue(int capacity) {
+        elements = new Object[Math.max(capacity, 2)];
+        front = 0;
+        size = 0;
     }
     
     public void enqueue(Q x) {
-
-        Node<Q> newNode = new Node<>(x);
-        if (isEmpty()) {
-            front = newNode;
-        } else {
-            rear.setNext(newNode);
+        if (size == elements.length) {
+            grow(size + 1);
         }
-        rear = newNode;
-        size++; 
+        elements[(front + size) % elements.length] = x;
+        size++;
+    }
     
+    //enqueue every element in iteration order, growing at most once
+    public void enqueueAll(Collection<? extends Q> values) {
+        if (size + values.size() > elements.length) {
+            grow(size + values.size());
+        }
+        for (Q value : values) {
+            elements[(front + size) % elements.length] = value;
+            size++;
+        }
     }
     
+    //dequeue, null when empty
+    @SuppressWarnings("unchecked")
     public Q dequeue() {
-    if (isEmpty()) {
-      System.out.println("Queue is empty");
-      return null;
-    }
-    Q data = front.getValue();
-    front = front.getNext();
-    size--;
-    if(front == null) {
-        rear = null;
-    }
-    return data;
+        if (isEmpty()) {
+            return null;
+        }
+        Q data = (Q) elements[front];
+        elements[front] = null;
+        front = (front + 1) % elements.length;
+        size--;
+        return data;
     }
     
+    //dequeue up to max elements into target, returns how many were moved
+    public int drainTo(Collection<? super Q> target, int max) {
+        int moved = 0;
+        while (moved < max && !isEmpty()) {
+            target.add(dequeue());
+            moved++;
+        }
+        return moved;
+    }
     
+    //first element, null when empty
+    @SuppressWarnings("unchecked")
     public Q peek() {
-    if (isEmpty()) {
-    System.out.println("Queue is empty");
-    return null;
-    }
-    return front.getValue();
+        if (isEmpty()) {
+            return null;
+        }
+        return (Q) elements[front];
     }
     
     public boolean isEmpty() {
-    return front == null;
+        return size == 0;
     }
+    
+    public void clear() {
+        Arrays.fill(elements, null);
+        front = 0;
+        size = 0;
+    }
+    
     public String toString(){
-      StringBuilder sb = new StringBuilder();
-      Node<Q> current = front;
-      while(current != null){
-        sb.append(current.getValue()).append(" ");
-        current = current.getNext();
-      }
-      return sb.toString();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sb.append(elements[(front + i) % elements.length]).append(" ");
+        }
+        return sb.toString();
     }
+    
     public int size() {
         return size;
     }
+    
+    // copy into a larger array with the first element at slot 0
+    private void grow(int minCapacity) {
+        Object[] grown = new Object[Math.max(minCapacity, elements.length * 2)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = elements[(front + i) % elements.length];
+        }
+        elements = grown;
+        front = 0;
+    }
 }
\ No newline at end of file
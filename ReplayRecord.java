@@ -0,0 +1,121 @@
+import java.nio.ByteBuffer;
+
+//one played turn of a replay file, stored in a fixed number of bytes so any turn is found by its offset:
+//agent id, action, effects, rotation axis, an unused byte, rotation index, then the agent's x and y
+public class ReplayRecord {
+    public static final int SIZE = 20;
+
+    // effects, combined as bit flags
+    public static final int MOVED = 1;
+    public static final int BLOCKED = 2;  // an earlier agent of the simultaneous round took the cell, the agent waited
+    public static final int TRAP = 4;
+    public static final int POWER_UP_COLLECTED = 8;
+    public static final int POWER_UP_USED = 16;
+    public static final int REACHED_GOAL = 32;
+
+    // rotation axis, or a scheduled turn whose rotation index holds how many corridors were due
+    public static final int ROTATED_ROW = 0;
+    public static final int ROTATED_COLUMN = 1;
+    public static final int ROTATED_SCHEDULE = 2;
+
+    private int agentId;
+    private int action;  // direction ordinal, or GameController's power-up and wait actions
+    private int effects;
+    private int rotation;
+    private int rotationIndex;  // index among the maze's rotating rows or columns, or the corridors due
+    private int x;  // where the agent stood after its action
+    private int y;
+
+    public ReplayRecord(int agentId, int action, int effects, int rotation, int rotationIndex, int x, int y) {
+        this.agentId = agentId;
+        this.action = action;
+        this.effects = effects;
+        this.rotation = rotation;
+        this.rotationIndex = rotationIndex;
+        this.x = x;
+        this.y = y;
+    }
+
+    //read a record at the buffer's position
+    public static ReplayRecord read(ByteBuffer buffer) {
+        int agentId = buffer.getInt();
+        int action = buffer.get();
+        int effects = buffer.get();
+        int rotation = buffer.get();
+        buffer.get();
+        return new ReplayRecord(agentId, action, effects, rotation, buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+
+    //write a record at the buffer's position
+    public static void write(ByteBuffer buffer, int agentId, int action, int effects, int rotation,
+                             int rotationIndex, int x, int y) {
+        buffer.putInt(agentId);
+        buffer.put((byte) action);
+        buffer.put((byte) effects);
+        buffer.put((byte) rotation);
+        buffer.put((byte) 0);
+        buffer.putInt(rotationIndex);
+        buffer.putInt(x);
+        buffer.putInt(y);
+    }
+
+    public int getAgentId() {
+        return agentId;
+    }
+
+    public int getAction() {
+        return action;
+    }
+
+    public int getEffects() {
+        return effects;
+    }
+
+    public boolean hasEffect(int effect) {
+        return (effects & effect) != 0;
+    }
+
+    public boolean isRowRotation() {
+        return rotation == ROTATED_ROW;
+    }
+
+    public boolean isScheduledRotation() {
+        return rotation == ROTATED_SCHEDULE;
+    }
+
+    public int getRotationIndex() {
+        return rotationIndex;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Agent ").append(agentId).append(" ");
+        if (action >= 0) {
+            sb.append(Direction.values()[action]);
+        } else {
+            sb.append(action == GameController.USE_POWER_UP ? "USE_POWER_UP" : "WAIT");
+        }
+        sb.append(" to (").append(x).append(",").append(y).append(")");
+        String[] names = {"moved", "blocked", "trap", "power-up collected", "power-up used", "reached goal"};
+        for (int i = 0; i < names.length; i++) {
+            if ((effects & (1 << i)) != 0) {
+                sb.append(", ").append(names[i]);
+            }
+        }
+        if (isScheduledRotation()) {
+            sb.append(", ").append(rotationIndex).append(" scheduled rotations");
+        } else {
+            sb.append(isRowRotation() ? ", rotated row " : ", rotated column ").append(rotationIndex);
+        }
+        return sb.toString();
+    }
+}
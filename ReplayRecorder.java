@@ -0,0 +1,81 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+//writes a binary replay of a run: a header with the seed and parameters, then one fixed size
+//ReplayRecord per played turn, streamed through a buffer so memory use stays constant
+//header: magic, version, width, height, agents, wall, trap and power-up densities, max turns,
+//seed, strategy, flags, rotating rows, rotating columns, rotation period,
+//then the length and UTF-8 bytes of the maze file name, 0 when generated
+public class ReplayRecorder implements Closeable {
+    public static final int MAGIC = 0x4D5A5250;  // "MZRP"
+    public static final int VERSION = 3;  // 3 rotates runs on a loaded maze from the run seed
+    public static final int HEADER_SIZE = 80;  // without the maze file name
+    public static final int SIMULTANEOUS = 1;  // header flag
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    //opens the file, replacing any existing content, and writes the header
+    public ReplayRecorder(String filename, SimulationConfig config) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        byte[] mazeFile = config.getMazeFile() == null ? new byte[0]
+                : config.getMazeFile().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + mazeFile.length);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(config.getMazeWidth());
+        header.putInt(config.getMazeHeight());
+        header.putInt(config.getNumAgents());
+        header.putDouble(config.getWallDensity());
+        header.putDouble(config.getTrapDensity());
+        header.putDouble(config.getPowerUpDensity());
+        header.putInt(config.getMaxTurns());
+        header.putLong(config.getSeed());
+        header.putInt(config.getStrategy().ordinal());
+        header.putInt(config.isSimultaneous() ? SIMULTANEOUS : 0);
+        header.putInt(config.getRotatingRows());
+        header.putInt(config.getRotatingColumns());
+        header.putInt(config.getRotationPeriod());
+        header.putInt(mazeFile.length);
+        header.put(mazeFile);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    //record a played turn with the rotation that followed it
+    public void record(Agent agent, int action, int effects, int rotation, int rotationIndex) throws IOException {
+        if (buffer.remaining() < ReplayRecord.SIZE) {
+            drain();
+        }
+        ReplayRecord.write(buffer, agent.getId(), action, effects, rotation, rotationIndex,
+                           agent.getCurrentX(), agent.getCurrentY());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
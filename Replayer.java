@@ -0,0 +1,155 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+//replays a file written by ReplayRecorder: rebuilds the run's maze and agents from the header,
+//then applies the recorded actions and rotations without deciding anything.
+//records have a fixed size, so any turn is read straight from its offset
+//  java -cp out Replayer <replay file> <turn>
+public class Replayer implements Closeable {
+    private static final int WINDOW_SIZE = 64 * 1024;  // bytes of records read at once
+
+    private final String filename;
+    private final FileChannel channel;
+    private final SimulationConfig config;
+    private final long recordsStart;
+    private final int recordCount;
+    private final ByteBuffer window;
+    private long windowStart;  // file offset of the window, -1 before the first read
+    private GameController controller;
+
+    //opens the file and reads its header
+    public Replayer(String filename) throws IOException {
+        this.filename = filename;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        this.window = ByteBuffer.allocateDirect(WINDOW_SIZE);
+        this.windowStart = -1;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(ReplayRecorder.HEADER_SIZE);
+            readFully(header, 0);
+            if (header.getInt() != ReplayRecorder.MAGIC) {
+                throw new IOException("Not a replay file: " + filename);
+            }
+            int version = header.getInt();
+            if (version != ReplayRecorder.VERSION) {
+                throw new IOException("Unsupported replay file version " + version + ": " + filename);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            int numAgents = header.getInt();
+            double wallDensity = header.getDouble();
+            double trapDensity = header.getDouble();
+            double powerUpDensity = header.getDouble();
+            int maxTurns = header.getInt();
+            long seed = header.getLong();
+            int strategy = header.getInt();
+            int flags = header.getInt();
+            int rotatingRows = header.getInt();
+            int rotatingColumns = header.getInt();
+            int rotationPeriod = header.getInt();
+            int nameLength = header.getInt();
+            if (strategy < 0 || strategy >= AgentStrategy.values().length || nameLength < 0 || nameLength > 4096) {
+                throw new IOException("Invalid replay header: " + filename);
+            }
+            ByteBuffer name = ByteBuffer.allocate(nameLength);
+            readFully(name, ReplayRecorder.HEADER_SIZE);
+
+            this.config = new SimulationConfig(width, height, numAgents, wallDensity, trapDensity,
+                                               powerUpDensity, maxTurns, seed);
+            config.setStrategy(AgentStrategy.values()[strategy]);
+            config.setSimultaneous((flags & ReplayRecorder.SIMULTANEOUS) != 0);
+            config.setRotatingCorridors(rotatingRows, rotatingColumns, rotationPeriod);
+            if (nameLength > 0) {
+                config.setMazeFile(new String(name.array(), StandardCharsets.UTF_8));
+            }
+            this.recordsStart = ReplayRecorder.HEADER_SIZE + nameLength;
+            this.recordCount = (int) Math.min(Integer.MAX_VALUE, (channel.size() - recordsStart) / ReplayRecord.SIZE);
+        } catch (IOException | BufferUnderflowException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Truncated replay file: " + filename);
+        }
+    }
+
+    //parameters of the recorded run
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    //number of recorded turns
+    public int getTurnCount() {
+        return recordCount;
+    }
+
+    //the record of a turn, counted from 1
+    public ReplayRecord getRecord(int turn) throws IOException {
+        if (turn < 1 || turn > recordCount) {
+            throw new IndexOutOfBoundsException("Turn " + turn + " not recorded, the replay has " + recordCount);
+        }
+        long offset = recordsStart + (long) (turn - 1) * ReplayRecord.SIZE;
+        if (windowStart < 0 || offset < windowStart || offset + ReplayRecord.SIZE > windowStart + window.limit()) {
+            window.clear();
+            window.limit((int) Math.min(WINDOW_SIZE, channel.size() - offset) / ReplayRecord.SIZE * ReplayRecord.SIZE);
+            readFully(window, offset);
+            windowStart = offset;
+        }
+        window.position((int) (offset - windowStart));
+        return ReplayRecord.read(window);
+    }
+
+    //the run as it stood after the given turn and its rotation, 0 for the start.
+    //seeking forward continues from the current turn, seeking back replays from the start
+    public GameController seek(int turn) throws IOException {
+        if (turn < 0 || turn > recordCount) {
+            throw new IndexOutOfBoundsException("Turn " + turn + " not recorded, the replay has " + recordCount);
+        }
+        if (controller == null || controller.getTurnCount() > turn) {
+            controller = BatchRunner.newController(config);
+        }
+        controller.replayTurns(this, turn);
+        return controller;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated replay file: " + filename);
+            }
+        }
+        buffer.flip();
+    }
+
+    //prints the record of a turn and the maze right after it
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java Replayer <replay file> <turn>");
+            return;
+        }
+        try (Replayer replayer = new Replayer(args[0])) {
+            int turn = Integer.parseInt(args[1]);
+            System.out.println("Configuration: " + replayer.getConfig());
+            System.out.println("Recorded turns: " + replayer.getTurnCount());
+            long start = System.nanoTime();
+            GameController controller = replayer.seek(turn);
+            System.out.printf("Replayed %d turns in %.3f s%n", turn, (System.nanoTime() - start) / 1e9);
+            if (turn > 0) {
+                System.out.println("Turn " + turn + ": " + replayer.getRecord(turn));
+            }
+            SimulationConfig config = replayer.getConfig();
+            if (!GameController.isLargeScale(config.getMazeWidth(), config.getMazeHeight())) {
+                System.out.println(controller.getMaze().printMazeSnapshot());
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading replay file: " + e.getMessage());
+        }
+    }
+}
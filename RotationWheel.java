@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+//timing wheel of corridor rotations: every corridor waits in the slot of the turn it is next due,
+//so advancing a turn only visits the corridors due in it, however many corridors there are
+public class RotationWheel {
+    private int[] period;  // turns between two rotations of each corridor
+    private int[] slotHead;  // first corridor waiting in each slot, -1 when none
+    private int[] next;  // next corridor in the same slot, -1 at the end
+    private int mask;  // slots - 1, there are at least as many slots as the longest period
+    private long turn;
+    private int[] due;  // corridors due in the last advanced turn
+    private int dueCount;
+
+    //constructor, corridor i first rotates after firstDue[i] turns, between 1 and period[i]
+    public RotationWheel(int[] period, int[] firstDue) {
+        int longest = 1;
+        for (int p : period) {
+            if (p < 1) {
+                throw new IllegalArgumentException("Invalid rotation period: " + p);
+            }
+            longest = Math.max(longest, p);
+        }
+        int slots = Integer.highestOneBit(longest);
+        if (slots < longest) {
+            slots <<= 1;
+        }
+        this.period = period.clone();
+        this.slotHead = new int[slots];
+        this.next = new int[period.length];
+        this.mask = slots - 1;
+        this.turn = 0;
+        this.due = new int[period.length];
+        Arrays.fill(slotHead, -1);
+        for (int i = 0; i < period.length; i++) {
+            if (firstDue[i] < 1 || firstDue[i] > period[i]) {
+                throw new IllegalArgumentException("Invalid first rotation of corridor " + i + ": " + firstDue[i]);
+            }
+            insert(i, firstDue[i]);
+        }
+    }
+
+    //move to the next turn and collect the corridors due in it, returns how many there are
+    public int advance() {
+        turn++;
+        int slot = (int) (turn & mask);
+        int corridor = slotHead[slot];
+        slotHead[slot] = -1;
+        dueCount = 0;
+        while (corridor >= 0) {
+            int following = next[corridor];
+            due[dueCount++] = corridor;
+            insert(corridor, turn + period[corridor]);
+            corridor = following;
+        }
+        return dueCount;
+    }
+
+    //the i-th corridor due in the last advanced turn
+    public int getDue(int i) {
+        return due[i];
+    }
+
+    public int getCorridorCount() {
+        return period.length;
+    }
+
+    public int getPeriod(int corridor) {
+        return period[corridor];
+    }
+
+    //turns until each corridor rotates next, between 1 and its period
+    public int[] getTurnsUntilDue() {
+        int[] ahead = new int[period.length];
+        for (int step = 1; step <= mask + 1; step++) {
+            for (int c = slotHead[(int) ((turn + step) & mask)]; c >= 0; c = next[c]) {
+                ahead[c] = step;
+            }
+        }
+        return ahead;
+    }
+
+    private void insert(int corridor, long dueTurn) {
+        int slot = (int) (dueTurn & mask);
+        next[corridor] = slotHead[slot];
+        slotHead[slot] = corridor;
+    }
+}
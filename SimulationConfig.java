@@ -0,0 +1,165 @@
+import java.util.SplittableRandom;
+
+//parameters of a single simulation run
+public class SimulationConfig {
+    public static final String CSV_HEADER = "width,height,agents,walls,traps,power_ups,rotating_rows,"
+            + "rotating_columns,rotation_period,max_turns,strategy,simultaneous,seed,maze_file";
+    
+    private int mazeWidth;
+    private int mazeHeight;
+    private int numAgents;
+    private double wallDensity;  // NaN when a maze file does not record it
+    private double trapDensity;
+    private double powerUpDensity;
+    private int maxTurns;
+    private long seed;
+    private AgentStrategy strategy;
+    private boolean simultaneous;  // all agents decide each round in parallel
+    private String mazeFile;  // saved maze every run plays on, null to generate one per run
+    private int rotatingRows;  // rotating corridors of generated mazes
+    private int rotatingColumns;
+    private int rotationPeriod;  // longest rotation period, 0 for one random corridor per turn
+    
+    //constructor with given parameters and a random seed
+    public SimulationConfig(int mazeWidth, int mazeHeight, int numAgents,
+                            double wallDensity, double trapDensity, double powerUpDensity,
+                            int maxTurns) {
+        this(mazeWidth, mazeHeight, numAgents, wallDensity, trapDensity, powerUpDensity, maxTurns,
+             new SplittableRandom().nextLong());
+    }
+    
+    //constructor with given parameters and seed
+    public SimulationConfig(int mazeWidth, int mazeHeight, int numAgents,
+                            double wallDensity, double trapDensity, double powerUpDensity,
+                            int maxTurns, long seed) {
+        this.mazeWidth = mazeWidth;
+        this.mazeHeight = mazeHeight;
+        this.numAgents = numAgents;
+        this.wallDensity = wallDensity;
+        this.trapDensity = trapDensity;
+        this.powerUpDensity = powerUpDensity;
+        this.maxTurns = maxTurns;
+        this.seed = seed;
+        this.strategy = AgentStrategy.RANDOM;
+        this.rotatingRows = 1;
+        this.rotatingColumns = 1;
+        this.rotationPeriod = 0;
+    }
+    
+    //same parameters with another seed
+    public SimulationConfig withSeed(long seed) {
+        SimulationConfig config = new SimulationConfig(mazeWidth, mazeHeight, numAgents, wallDensity,
+                                                       trapDensity, powerUpDensity, maxTurns, seed);
+        config.setStrategy(strategy);
+        config.setMazeFile(mazeFile);
+        config.setSimultaneous(simultaneous);
+        config.setRotatingCorridors(rotatingRows, rotatingColumns, rotationPeriod);
+        return config;
+    }
+    
+    public int getMazeWidth() {
+        return mazeWidth;
+    }
+    
+    public int getMazeHeight() {
+        return mazeHeight;
+    }
+    
+    public int getNumAgents() {
+        return numAgents;
+    }
+    
+    public double getWallDensity() {
+        return wallDensity;
+    }
+    
+    public double getTrapDensity() {
+        return trapDensity;
+    }
+    
+    public double getPowerUpDensity() {
+        return powerUpDensity;
+    }
+    
+    public int getMaxTurns() {
+        return maxTurns;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public AgentStrategy getStrategy() {
+        return strategy;
+    }
+    
+    public void setStrategy(AgentStrategy strategy) {
+        this.strategy = strategy;
+    }
+    
+    public boolean isSimultaneous() {
+        return simultaneous;
+    }
+    
+    public void setSimultaneous(boolean simultaneous) {
+        this.simultaneous = simultaneous;
+    }
+    
+    public String getMazeFile() {
+        return mazeFile;
+    }
+    
+    //share a saved maze between runs instead of generating one each, null to generate
+    public void setMazeFile(String mazeFile) {
+        this.mazeFile = mazeFile;
+    }
+    
+    public int getRotatingRows() {
+        return rotatingRows;
+    }
+    
+    public int getRotatingColumns() {
+        return rotatingColumns;
+    }
+    
+    public int getRotationPeriod() {
+        return rotationPeriod;
+    }
+    
+    //rotating corridors of generated mazes, see MazeManager.setRotatingCorridors
+    public void setRotatingCorridors(int rows, int columns, int period) {
+        this.rotatingRows = rows;
+        this.rotatingColumns = columns;
+        this.rotationPeriod = period;
+    }
+    
+    //the parameters as one CSV row, columns as in CSV_HEADER
+    public String toCsv() {
+        String file = "";
+        if (mazeFile != null) {
+            file = mazeFile.contains(",") || mazeFile.contains("\"")
+                    ? "\"" + mazeFile.replace("\"", "\"\"") + "\"" : mazeFile;
+        }
+        return mazeWidth + "," + mazeHeight + "," + numAgents + "," + density(wallDensity) + ","
+                + density(trapDensity) + "," + density(powerUpDensity) + "," + rotatingRows + "," + rotatingColumns + "," + rotationPeriod + ","
+                + maxTurns + "," + strategy + "," + simultaneous + "," + seed + "," + file;
+    }
+    
+    @Override
+    public String toString() {
+        String layout = mazeFile != null ? "maze file " + mazeFile
+                : "walls " + wallDensity + ", traps " + trapDensity + ", power-ups " + powerUpDensity;
+        if (rotatingRows != 1 || rotatingColumns != 1 || rotationPeriod != 0) {
+            layout += ", " + rotatingRows + " rotating rows, " + rotatingColumns + " rotating columns"
+                    + (rotationPeriod > 0 ? " every 1-" + rotationPeriod + " turns" : "");
+        }
+        return mazeWidth + "x" + mazeHeight + ", " + numAgents + " agents, " + layout
+                + ", max " + maxTurns + " turns, " + strategy + " agents"
+                + (simultaneous ? ", simultaneous moves" : "") + ", seed " + seed;
+    }
+    
+    // empty when unknown
+    private static String density(double density) {
+        return Double.isNaN(density) ? "" : String.valueOf(density);
+    }
+}
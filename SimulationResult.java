@@ -0,0 +1,73 @@
+import java.util.List;
+
+//final statistics of one finished run, copied out of the agents
+public class SimulationResult {
+    private long seed;
+    private int turnCount;
+    private int[] moves;
+    private int[] backtracks;
+    private int[] trapsTriggered;
+    private int[] powerUpsUsed;
+    private boolean[] reachedGoal;
+    private Metrics metrics;
+    
+    //constructor, copies the statistics of every agent
+    public SimulationResult(long seed, int turnCount, List<Agent> agents, Metrics metrics) {
+        int numAgents = agents.size();
+        this.seed = seed;
+        this.turnCount = turnCount;
+        this.metrics = metrics;
+        this.moves = new int[numAgents];
+        this.backtracks = new int[numAgents];
+        this.trapsTriggered = new int[numAgents];
+        this.powerUpsUsed = new int[numAgents];
+        this.reachedGoal = new boolean[numAgents];
+        
+        for (int i = 0; i < numAgents; i++) {
+            Agent agent = agents.get(i);
+            moves[i] = agent.getTotalMoves();
+            backtracks[i] = agent.getBacktracks();
+            trapsTriggered[i] = agent.getTrapsTriggered();
+            powerUpsUsed[i] = agent.getPowerUpsUsed();
+            reachedGoal[i] = agent.hasReachedGoal();
+        }
+    }
+    
+    //seed that replays this run
+    public long getSeed() {
+        return seed;
+    }
+    
+    public int getTurnCount() {
+        return turnCount;
+    }
+    
+    public int getAgentCount() {
+        return moves.length;
+    }
+    
+    public int getMoves(int agent) {
+        return moves[agent];
+    }
+    
+    public int getBacktracks(int agent) {
+        return backtracks[agent];
+    }
+    
+    public int getTrapsTriggered(int agent) {
+        return trapsTriggered[agent];
+    }
+    
+    public int getPowerUpsUsed(int agent) {
+        return powerUpsUsed[agent];
+    }
+    
+    public boolean hasReachedGoal(int agent) {
+        return reachedGoal[agent];
+    }
+    
+    //phase latencies and throughput of the run
+    public Metrics getMetrics() {
+        return metrics;
+    }
+}
\ No newline at end of file
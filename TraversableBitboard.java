@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+//one bit per cell, set when the cell is traversable, rows packed into longs
+//reachability floods a whole row 64 cells at a time with shifts, adds and masks
+public class TraversableBitboard {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] free;  // bit x % 64 of word y * wordsPerRow + x / 64, padding bits stay clear
+
+    // flood scratch
+    private final long[] visited;
+    private final int[] pendingRows;  // rows whose visited bits grew and still spread to their neighbors
+    private final boolean[] pending;
+    private final int[] dirtyLow;  // first and last word of a pending row that gained visited bits
+    private final int[] dirtyHigh;
+    private int filledLow;  // words the last fillRow touched
+    private int filledHigh;
+
+    //constructor, every cell starts as a wall
+    public TraversableBitboard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.free = new long[wordsPerRow * height];
+        this.visited = new long[free.length];
+        this.pendingRows = new int[height];
+        this.pending = new boolean[height];
+        this.dirtyLow = new int[height];
+        this.dirtyHigh = new int[height];
+    }
+
+    public boolean isTraversable(int x, int y) {
+        return (free[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    public void set(int x, int y, boolean traversable) {
+        int word = y * wordsPerRow + (x >>> 6);
+        if (traversable) {
+            free[word] |= 1L << x;
+        } else {
+            free[word] &= ~(1L << x);
+        }
+    }
+
+    //replace 64 cells of a row at once, bit i is cell word * 64 + i, bits past the width must be clear
+    public void setWord(int y, int word, long bits) {
+        free[y * wordsPerRow + word] = bits;
+    }
+
+    //true when a path of traversable cells joins the two cells, both must be traversable
+    public boolean isReachable(int startX, int startY, int goalX, int goalY) {
+        if (!isTraversable(startX, startY) || !isTraversable(goalX, goalY)) {
+            return false;
+        }
+        Arrays.fill(visited, 0);
+        int goalWord = goalY * wordsPerRow + (goalX >>> 6);
+        long goalBit = 1L << goalX;
+
+        visited[startY * wordsPerRow + (startX >>> 6)] |= 1L << startX;
+        int size = 0;
+        pendingRows[size++] = startY;
+        pending[startY] = true;
+        dirtyLow[startY] = startX >>> 6;
+        dirtyHigh[startY] = startX >>> 6;
+
+        while (size > 0) {
+            int y = pendingRows[--size];
+            pending[y] = false;
+            int row = y * wordsPerRow;
+            fillRow(row, dirtyLow[y], dirtyHigh[y]);
+            if ((visited[goalWord] & goalBit) != 0) {
+                Arrays.fill(pending, false);
+                return true;
+            }
+            if (y > 0 && spread(row, y - 1) && !pending[y - 1]) {
+                pending[y - 1] = true;
+                pendingRows[size++] = y - 1;
+            }
+            if (y < height - 1 && spread(row, y + 1) && !pending[y + 1]) {
+                pending[y + 1] = true;
+                pendingRows[size++] = y + 1;
+            }
+        }
+        return false;
+    }
+
+    // grow the visited bits of a row along its runs of free cells, in both directions.
+    // adding a seed to a run of ones carries through the rest of the run, so the changed
+    // bits are the cells above the seed, the same on reversed words gives the cells below.
+    // words outside low..high were filled before, a run only leaves the range while the carry lasts
+    private void fillRow(int row, int low, int high) {
+        long carry = 0;
+        int w = low;
+        for (; w < wordsPerRow && (w <= high || carry != 0); w++) {
+            long f = free[row + w];
+            long s = visited[row + w];
+            long sum = f + s;
+            long total = sum + carry;
+            carry = (Long.compareUnsigned(sum, f) < 0 || (carry != 0 && total == 0)) ? 1 : 0;
+            visited[row + w] = ((total ^ f) & f) | s;
+        }
+        filledHigh = w - 1;
+        carry = 0;
+        w = filledHigh;
+        for (; w >= 0 && (w >= low || carry != 0); w--) {
+            long f = Long.reverse(free[row + w]);
+            long s = Long.reverse(visited[row + w]);
+            long sum = f + s;
+            long total = sum + carry;
+            carry = (Long.compareUnsigned(sum, f) < 0 || (carry != 0 && total == 0)) ? 1 : 0;
+            visited[row + w] = Long.reverse(((total ^ f) & f) | s);
+        }
+        filledLow = w + 1;
+    }
+
+    // visit the free cells of row y next to the cells the last fillRow visited, true when any were new
+    private boolean spread(int from, int y) {
+        int to = y * wordsPerRow;
+        boolean grew = false;
+        for (int w = filledLow; w <= filledHigh; w++) {
+            long added = visited[from + w] & free[to + w] & ~visited[to + w];
+            if (added == 0) {
+                continue;
+            }
+            visited[to + w] |= added;
+            if (!grew && !pending[y]) {
+                dirtyLow[y] = w;
+                dirtyHigh[y] = w;
+            }
+            dirtyLow[y] = Math.min(dirtyLow[y], w);
+            dirtyHigh[y] = Math.max(dirtyHigh[y], w);
+            grew = true;
+        }
+        return grew;
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+//rebuilds the maze of any logged turn from a turn log: the last keyframe at or before the turn,
+//then the changes and rotations logged after it
+//  java -cp out TurnLogReader <log file> <turn>
+public class TurnLogReader {
+    private static final String TURN_HEADER = "======= Turn ";
+
+    private String filename;
+
+    public TurnLogReader(String filename) {
+        this.filename = filename;
+    }
+
+    //maze and agents right after the action of the given turn, before the rotations that follow it
+    public MazeManager readTurn(int turn) throws IOException {
+        MazeManager maze = null;
+        int current = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(TURN_HEADER)) {
+                    int logged = Integer.parseInt(line.substring(TURN_HEADER.length(), line.indexOf(' ', TURN_HEADER.length())));
+                    if (logged > turn) {
+                        break;
+                    }
+                    current = logged;
+                } else if (line.equals("Keyframe:")) {
+                    maze = MazeManager.readKeyframe(reader);
+                } else if (maze == null) {
+                    continue;
+                } else if (line.startsWith("Changes: ")) {
+                    applyChanges(maze, line.substring("Changes: ".length()));
+                } else if (line.startsWith("Rotated ")) {
+                    if (current == turn) {
+                        break;
+                    }
+                    applyRotation(maze, line);
+                }
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid turn log " + filename + ": " + e.getMessage());
+        }
+        if (maze == null || current != turn) {
+            throw new IOException("Turn " + turn + " is not in the log: " + filename);
+        }
+        return maze;
+    }
+
+    // "agent <id> <x> <y>" and "tile <x> <y> <type>" separated by "; ", or "none"
+    private static void applyChanges(MazeManager maze, String changes) {
+        if (changes.equals("none")) {
+            return;
+        }
+        for (String change : changes.split("; ")) {
+            String[] parts = change.split(" ");
+            if (parts[0].equals("agent")) {
+                maze.placeAgent(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            } else if (parts[0].equals("tile")) {
+                maze.getTile(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])).setType(parts[3].charAt(0));
+            } else {
+                throw new IllegalArgumentException("Unknown change: " + change);
+            }
+        }
+    }
+
+    // "Rotated row <index>" or "Rotated column <index>" as returned by rotateRandomCorridor, or
+    //scheduled rotations "Rotated row <index> by <direction>, column <index> by <direction>"
+    private static void applyRotation(MazeManager maze, String rotation) {
+        for (String corridor : rotation.substring("Rotated ".length()).split(", ")) {
+            String[] parts = corridor.split(" ");
+            int direction = parts.length > 2 ? Integer.parseInt(parts[3]) : 1;
+            if (parts[0].equals("row")) {
+                maze.rotateRow(Integer.parseInt(parts[1]), direction);
+            } else {
+                maze.rotateColumn(Integer.parseInt(parts[1]), direction);
+            }
+        }
+    }
+
+    //prints the maze of one turn
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java TurnLogReader <log file> <turn>");
+            return;
+        }
+        try {
+            MazeManager maze = new TurnLogReader(args[0]).readTurn(Integer.parseInt(args[1]));
+            System.out.println(maze.printMazeSnapshot());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading log file: " + e.getMessage());
+        }
+    }
+}
@@ -1,19 +1,33 @@
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 // control turn order
 public class TurnManager {
     private Queue<Agent> agentQueue;
     private int currentRound;
+    private int turnsLeftInRound;  // agents still to play before the round ends
     private List<Agent> finishedAgents;
+    private BitSet finishedIds;  // ids of the agents in finishedAgents
     private List<String> turnLogs;
+    private TurnLogWriter logWriter;  // when set, turn logs are streamed instead of kept
+    private StringBuilder logBuffer;
     
     //constructor
     public TurnManager() {
         this.agentQueue = new Queue<>();
         this.currentRound = 0;
+        this.turnsLeftInRound = 0;
         this.finishedAgents = new ArrayList<>();
+        this.finishedIds = new BitSet();
         this.turnLogs = new ArrayList<>();
+        this.logBuffer = new StringBuilder();
+    }
+    
+    // stream turn logs to the writer instead of keeping them in memory
+    public void setLogWriter(TurnLogWriter logWriter) {
+        this.logWriter = logWriter;
     }
     
     // add agent to the queue
@@ -21,7 +35,7 @@ public class TurnManager {
         agentQueue.enqueue(agent);
     }
     
-    // get current round
+    // get number of completed rounds
     public int getCurrentRound() {
         return currentRound;
     }
@@ -32,25 +46,43 @@ public class TurnManager {
             return null;
         }
         
+        // A round gives one turn to every agent queued when it starts
+        if (turnsLeftInRound == 0) {
+            turnsLeftInRound = agentQueue.size();
+        }
+        
         // Dequeue the next agent
         Agent currentAgent = agentQueue.dequeue();
+        turnsLeftInRound--;
         
         // If the agent hasn't reached the goal, re-enqueue it
         if (!currentAgent.hasReachedGoal()) {
             agentQueue.enqueue(currentAgent);
-        } else if (!finishedAgents.contains(currentAgent)) {
+        } else if (!finishedIds.get(currentAgent.getId())) {
             // Add to finished agents list if not already there
+            finishedIds.set(currentAgent.getId());
             finishedAgents.add(currentAgent);
         }
         
-        // If we've gone through all agents, increment the round counter
-        if (agentQueue.size() + finishedAgents.size() == 1) {
+        if (turnsLeftInRound == 0) {
             currentRound++;
         }
         
         return currentAgent;
     }
     
+    // take the rest of the current round at once, agents still playing are added to round in turn order
+    public void nextRound(List<Agent> round) {
+        round.clear();
+        int count = turnsLeftInRound > 0 ? turnsLeftInRound : agentQueue.size();
+        for (int i = 0; i < count; i++) {
+            Agent agent = advanceTurn();
+            if (!agent.hasReachedGoal()) {
+                round.add(agent);
+            }
+        }
+    }
+    
     // get current agent
     public Agent getCurrentAgent() {
         if (agentQueue.isEmpty()) {
@@ -65,17 +97,47 @@ public class TurnManager {
     }
     
     // log turn summary each turn
-    public void logTurnSummary(Agent agent, String action, String mazeState, int turnCount) {
-        StringBuilder log = new StringBuilder();
+    // changes lists what the turn did to the maze, keyframe is the full maze state or null between keyframes
+    public void logTurnSummary(Agent agent, String action, CharSequence changes, CharSequence keyframe, int turnCount) {
+        StringBuilder log = logBuffer;
+        log.setLength(0);
         log.append("======= Turn ").append(turnCount).append(" =======\n");
         log.append("Agent ").append(agent.getId()).append(" ");
         log.append(action).append("\n");
         log.append("Position: (").append(agent.getCurrentX()).append(",").append(agent.getCurrentY()).append(")\n");
         log.append("Move History: ").append(agent.getMoveHistoryAsString()).append("\n");
-        log.append("Maze State:\n").append(mazeState).append("\n");
+        log.append("Changes: ").append(changes.length() == 0 ? "none" : changes).append("\n");
+        if (keyframe != null) {
+            log.append("Keyframe:\n").append(keyframe);
+        }
         log.append("=====================\n");
-        
-        turnLogs.add(log.toString());
+        writeLog(log);
+    }
+    
+    // log a corridor rotation, applied after the turns logged before it
+    public void logRotation(String rotationResult) {
+        writeLog(rotationResult);
+        writeLog("(Rotating corridors are marked with '*' on the borders)");
+        // the rotation ends the turn, hand it to the file so a crash loses at most the turn being played
+        if (logWriter != null) {
+            try {
+                logWriter.flush();
+            } catch (IOException e) {
+                System.err.println("Error writing to log file: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void writeLog(CharSequence log) {
+        if (logWriter == null) {
+            turnLogs.add(log.toString());
+            return;
+        }
+        try {
+            logWriter.writeLine(log);
+        } catch (IOException e) {
+            System.err.println("Error writing to log file: " + e.getMessage());
+        }
     }
     
     // get the list of finished agents
@@ -83,7 +145,7 @@ public class TurnManager {
         return finishedAgents;
     }
     
-    // get the list of turn logs
+    // get the list of turn logs, empty while streaming to a writer
     public List<String> getTurnLogs() {
         return turnLogs;
     }
@@ -0,0 +1,202 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+//micro benchmarks for the core data structures and maze operations
+//reports throughput and allocation rate of every benchmark, run with an optional name filter:
+//  java -cp out MazeBenchmarks [filter]
+//iterations are tuned with -Dbench.warmup, -Dbench.iterations and -Dbench.time (milliseconds)
+public class MazeBenchmarks {
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmup", 5);
+    private static final int MEASURE_ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_NANOS = Integer.getInteger("bench.time", 200) * 1_000_000L;
+    private static final int BATCH = 1000;  // elements per data structure operation
+    private static final long SEED = 42;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // keeps results alive so the JIT cannot drop the measured work
+    private static long sink;
+
+    //one measured operation, returns a value for the sink
+    private interface Operation {
+        long run();
+    }
+
+    private static class Benchmark {
+        String name;
+        Operation operation;
+
+        Benchmark(String name, Operation operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        List<Benchmark> benchmarks = new ArrayList<>();
+        addDataStructureBenchmarks(benchmarks);
+        addMazeBenchmarks(benchmarks);
+
+        System.out.printf("%-40s %14s %14s %14s %12s%n", "Benchmark", "ops/s", "ns/op", "B/op", "MB/s alloc");
+        for (Benchmark benchmark : benchmarks) {
+            if (benchmark.name.contains(filter)) {
+                measure(benchmark);
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void addDataStructureBenchmarks(List<Benchmark> benchmarks) {
+        Stack<Integer> stack = new Stack<>();
+        benchmarks.add(new Benchmark("Stack.pushPop(" + BATCH + ")", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                stack.push(i);
+            }
+            long sum = 0;
+            while (!stack.isEmpty()) {
+                sum += stack.pop();
+            }
+            return sum;
+        }));
+
+        Queue<Integer> queue = new Queue<>();
+        benchmarks.add(new Benchmark("Queue.enqueueDequeue(" + BATCH + ")", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                queue.enqueue(i);
+            }
+            long sum = 0;
+            while (!queue.isEmpty()) {
+                sum += queue.dequeue();
+            }
+            return sum;
+        }));
+
+        IntQueue intQueue = new IntQueue();
+        benchmarks.add(new Benchmark("IntQueue.enqueueDequeue(" + BATCH + ")", () -> {
+            for (int i = 0; i < BATCH; i++) {
+                intQueue.enqueue(i);
+            }
+            long sum = 0;
+            while (!intQueue.isEmpty()) {
+                sum += intQueue.dequeue();
+            }
+            return sum;
+        }));
+
+        CircularLinkedList<Integer> circular = new CircularLinkedList<>();
+        for (int i = 0; i < BATCH; i++) {
+            circular.add(i);
+        }
+        benchmarks.add(new Benchmark("CircularLinkedList.rotateClockwise", () -> {
+            circular.rotateClockwise();
+            return circular.get(0);
+        }));
+        benchmarks.add(new Benchmark("CircularLinkedList.getAllElements(" + BATCH + ")", () -> {
+            return circular.getAllElements().size();
+        }));
+    }
+
+    private static void addMazeBenchmarks(List<Benchmark> benchmarks) {
+        for (int size : new int[] {20, 100, 500}) {
+            MazeManager generated = new MazeManager(size, size, SEED);
+            benchmarks.add(new Benchmark("MazeManager.generateMaze(" + size + ")", () -> {
+                generated.generateMaze(0.2, 0.1, 0.05);
+                return generated.getTile(size - 1, size - 1).getType();
+            }));
+        }
+
+        for (int size : new int[] {100, 500}) {
+            MazeManager maze = newMaze(size);
+            benchmarks.add(new Benchmark("MazeManager.isGoalAccessible(" + size + ")", () -> {
+                return maze.isGoalAccessible() ? 1 : 0;
+            }));
+            benchmarks.add(new Benchmark("MazeManager.rotateRandomCorridor(" + size + ")", () -> {
+                return maze.rotateRandomCorridor().length();
+            }));
+
+            MazeManager tracked = newMaze(size);
+            tracked.isGoalReachableFrom(0, 0);
+            benchmarks.add(new Benchmark("MazeManager.rotateAndCheckReachable(" + size + ")", () -> {
+                tracked.rotateRandomCorridor();
+                return tracked.isGoalReachableFrom(0, 0) ? 1 : 0;
+            }));
+
+            MazeManager field = newMaze(size);
+            field.getDistanceToGoal(0, 0);
+            benchmarks.add(new Benchmark("MazeManager.rotateAndReadDistance(" + size + ")", () -> {
+                field.rotateRandomCorridor();
+                return field.getDistanceToGoal(0, 0);
+            }));
+        }
+
+        // half the rows and columns rotating, each every 1 to 64 turns
+        for (int size : new int[] {100, 1000}) {
+            MazeManager scheduled = new MazeManager(size, size, SEED);
+            scheduled.setRotatingCorridors(size / 2, size / 2, 64);
+            scheduled.generateMaze(0.2, 0.1, 0.05);
+            benchmarks.add(new Benchmark("MazeManager.rotateCorridors(" + size + ")", () -> {
+                scheduled.rotateCorridors();
+                return scheduled.getLastRotationCount();
+            }));
+        }
+
+        for (int size : new int[] {20, 100}) {
+            MazeManager maze = newMaze(size);
+            for (int i = 0; i < 10; i++) {
+                maze.addAgent(new Agent(i, 0, 0));
+            }
+            benchmarks.add(new Benchmark("MazeManager.printMazeSnapshot(" + size + ")", () -> {
+                return maze.printMazeSnapshot().length();
+            }));
+        }
+    }
+
+    private static MazeManager newMaze(int size) {
+        MazeManager maze = new MazeManager(size, size, SEED);
+        maze.generateMaze(0.2, 0.1, 0.05);
+        return maze;
+    }
+
+    // warm up, then report the average over the measured iterations
+    private static void measure(Benchmark benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(benchmark.operation, new long[3]);
+        }
+
+        long[] totals = new long[3];  // operations, nanoseconds, allocated bytes
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            iteration(benchmark.operation, totals);
+        }
+
+        double seconds = totals[1] / 1e9;
+        System.out.printf("%-40s %14.1f %14.1f %14.1f %12.1f%n",
+                          benchmark.name,
+                          totals[0] / seconds,
+                          (double) totals[1] / totals[0],
+                          (double) totals[2] / totals[0],
+                          totals[2] / seconds / (1024 * 1024));
+    }
+
+    private static void iteration(Operation operation, long[] totals) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+        long ops = 0;
+        do {
+            sink += operation.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        totals[0] += ops;
+        totals[1] += elapsed;
+        totals[2] += allocated;
+    }
+}